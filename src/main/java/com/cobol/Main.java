@@ -2,25 +2,39 @@ package com.cobol;
 
 import com.cobol.parser.CopybookParserFacade;
 import com.cobol.parser.model.ParseResult;
-import com.cobol.parser.util.JsonUtils;
+import com.cobol.parser.token.CopybookLibrary;
+import com.cobol.parser.util.ParseResultJsonWriter;
+import java.io.BufferedWriter;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
 
 public class Main {
     public static void main(String[] args) {
         if (args.length == 0) {
-            System.err.println("Usage: java -jar parser.jar <path-to-copybook-file>");
+            System.err.println("Usage: java -jar parser.jar <path-to-copybook-file> [copy-library-dir ...]");
             System.exit(1);
         }
 
         try {
-            // The facade is now instantiated directly without any rule configurations.
-            CopybookParserFacade parser = new CopybookParserFacade();
+            // The first argument is the copybook; COPY members are looked up in the remaining
+            // arguments, or next to the copybook when no library directories are given.
+            Path copybook = Paths.get(args[0]);
+            List<Path> libraries = new ArrayList<>();
+            for (int i = 1; i < args.length; i++) libraries.add(Paths.get(args[i]));
+            if (libraries.isEmpty()) libraries.add(copybook.toAbsolutePath().getParent());
+            CopybookParserFacade parser = new CopybookParserFacade(new CopybookLibrary(libraries));
 
-            // The command-line argument is treated as a direct file path.
-            ParseResult result = parser.parse(Paths.get(args[0]));
+            ParseResult result = parser.parse(copybook);
 
-            String jsonOutput = JsonUtils.toPrettyJson(result);
-            System.out.println(jsonOutput);
+            // Written without Jackson databind so a single parse starts quickly.
+            Writer out = new BufferedWriter(new OutputStreamWriter(System.out));
+            ParseResultJsonWriter.write(result, out);
+            out.write(System.lineSeparator());
+            out.flush();
 
         } catch (Exception e) {
             System.err.println("Error parsing copybook: " + e.getMessage());
@@ -0,0 +1,148 @@
+package com.cobol.aggregate;
+
+import com.cobol.decoder.CompiledField;
+import com.cobol.decoder.DecodePlan;
+import com.cobol.decoder.Projection;
+import com.cobol.parser.model.RecordLayout;
+import com.cobol.rules.RecordClassifier;
+import com.cobol.sort.KeyNormalizer;
+import com.cobol.sort.SortKey;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Computes record counts and decimal sums grouped by key fields of a
+ * {@link RecordLayout}, in a single streaming pass over raw records.
+ * <p>
+ * Sum fields are accumulated as unscaled {@code long}s and only widened to 128 bits for
+ * a group whose running total overflows. Groups live in a primitive open-addressing hash
+ * table keyed by the normalized key bytes (see {@link KeyNormalizer}), so nothing is
+ * decoded or boxed per record. Each thread fills its own {@link PartialAggregate}; the
+ * partials are merged at the end.
+ */
+public class GroupByAggregator {
+
+    private static final long WINDOW_BYTES = 1L << 30;
+
+    private final RecordLayout layout;
+    private final KeyNormalizer keys;
+    private final List<CompiledField> sumFields = new ArrayList<>();
+    private final Charset charset;
+
+    public GroupByAggregator(RecordLayout layout, List<String> groupFields, List<String> sumFields) {
+        this(layout, groupFields, sumFields, StandardCharsets.ISO_8859_1);
+    }
+
+    public GroupByAggregator(RecordLayout layout, List<String> groupFields, List<String> sumFields, Charset charset) {
+        this.layout = layout;
+        this.keys = new KeyNormalizer(layout, groupFields.stream().map(SortKey::ascending).toList());
+        this.charset = charset;
+        for (String name : sumFields) {
+            List<CompiledField> resolved = DecodePlan.compile(layout, Projection.of(name)).getFields();
+            if (resolved.size() != 1 || !resolved.get(0).getEncoding().isNumeric()) {
+                throw new IllegalArgumentException("Sum field " + name + " must name one numeric field of " + layout.getName());
+            }
+            switch (resolved.get(0).getEncoding()) {
+                case FLOAT, DOUBLE -> throw new IllegalArgumentException("Sum field " + name + " is floating point; only fixed-point fields can be summed exactly");
+                default -> this.sumFields.add(resolved.get(0));
+            }
+        }
+    }
+
+    public RecordLayout getLayout() {
+        return layout;
+    }
+
+    KeyNormalizer getKeys() {
+        return keys;
+    }
+
+    List<CompiledField> getSumFields() {
+        return sumFields;
+    }
+
+    Charset getCharset() {
+        return charset;
+    }
+
+    /** Creates an empty partial aggregate for one thread. */
+    public PartialAggregate newPartial() {
+        return new PartialAggregate(this);
+    }
+
+    /** Aggregates a fixed-length file in which every record has this layout. */
+    public List<GroupResult> aggregate(Path file, int threads) throws IOException {
+        return aggregate(file, null, DecodePlan.recordLength(layout), threads);
+    }
+
+    /**
+     * Aggregates a fixed-length file, counting only records the classifier assigns to
+     * this layout (a {@code null} classifier accepts every record). The file is split
+     * into one contiguous range of records per thread.
+     *
+     * @param recordLength length of every record in the file, which for a file that mixes
+     *                     layouts may differ from this layout's own length
+     */
+    public List<GroupResult> aggregate(Path file, RecordClassifier classifier, int recordLength, int threads)
+            throws IOException {
+        if (threads < 1) throw new IllegalArgumentException("threads must be at least 1, was " + threads);
+        if (recordLength < Math.max(1, keys.getRequiredLength())) {
+            throw new IllegalArgumentException("Group fields extend past the record length of " + recordLength);
+        }
+        if (classifier != null && classifier.getLayouts().indexOf(layout) < 0) {
+            throw new IllegalArgumentException("Layout " + layout.getName() + " is not one of the classifier's layouts");
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long records = channel.size() / recordLength;
+            long perThread = (records + threads - 1) / threads;
+            List<Future<PartialAggregate>> tasks = new ArrayList<>();
+            for (long first = 0; first < records; first += perThread) {
+                long from = first * recordLength;
+                long to = Math.min(records, first + perThread) * recordLength;
+                tasks.add(executor.submit(() -> aggregateRange(channel, from, to, recordLength, classifier)));
+            }
+            PartialAggregate total = newPartial();
+            for (Future<PartialAggregate> task : tasks) total.merge(task.get());
+            return total.results();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) throw io;
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw new IOException("Failed to aggregate " + file, e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while aggregating " + file, e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private PartialAggregate aggregateRange(FileChannel channel, long from, long to, int recordLength,
+                                            RecordClassifier classifier) throws IOException {
+        PartialAggregate partial = newPartial();
+        RecordClassifier local = classifier == null ? null : classifier.copy();
+        int target = local == null ? -1 : local.getLayouts().indexOf(layout);
+        long window = Math.max(recordLength, WINDOW_BYTES / recordLength * recordLength);
+        for (long start = from; start < to; start += window) {
+            int size = (int) Math.min(window, to - start);
+            MappedByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, start, size);
+            for (int offset = 0; offset + recordLength <= size; offset += recordLength) {
+                if (local != null && local.classify(data, offset, recordLength) != target) continue;
+                partial.accept(data, offset, recordLength);
+            }
+        }
+        return partial;
+    }
+}
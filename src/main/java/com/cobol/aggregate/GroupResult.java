@@ -0,0 +1,14 @@
+package com.cobol.aggregate;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Data
+public class GroupResult {
+    private Map<String, Object> keys = new LinkedHashMap<>();
+    private long count;
+    private Map<String, BigDecimal> sums = new LinkedHashMap<>();
+}
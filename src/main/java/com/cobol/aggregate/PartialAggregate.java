@@ -0,0 +1,257 @@
+package com.cobol.aggregate;
+
+import com.cobol.decoder.CompiledField;
+import com.cobol.decoder.FieldDecoder;
+import com.cobol.decoder.FieldEncoding;
+import com.cobol.io.RecordHandler;
+import com.cobol.parser.model.RecordLayout;
+import com.cobol.sort.KeyNormalizer;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The per-thread state of a {@link GroupByAggregator}: an open-addressing hash table
+ * from normalized key bytes to group slots, with counts and sums kept in flat primitive
+ * arrays. Not thread-safe.
+ */
+public class PartialAggregate implements RecordHandler {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final GroupByAggregator aggregator;
+    private final KeyNormalizer normalizer;
+    private final List<CompiledField> keyFields;
+    private final CompiledField[] sumFields;
+    private final boolean[] sumFitsLong;
+    private final int keyWidth;
+    private final int requiredLength;
+    private final int entryWidth;
+    private final byte[] keyScratch;
+
+    private int[] table = new int[INITIAL_CAPACITY * 2];
+    private int[] hashes = new int[INITIAL_CAPACITY];
+    private byte[] entries;
+    private long[] counts = new long[INITIAL_CAPACITY];
+    private long[] sums;
+    private long[] highs;
+    private boolean[] wide;
+    private int groups;
+
+    PartialAggregate(GroupByAggregator aggregator) {
+        this.aggregator = aggregator;
+        this.normalizer = aggregator.getKeys();
+        this.keyFields = normalizer.getFields();
+        this.sumFields = aggregator.getSumFields().toArray(new CompiledField[0]);
+        this.sumFitsLong = new boolean[sumFields.length];
+        for (int i = 0; i < sumFields.length; i++) {
+            sumFitsLong[i] = FieldDecoder.fitsLong(sumFields[i].getEncoding(), sumFields[i].getLength());
+        }
+        int rawWidth = 0;
+        for (CompiledField field : keyFields) rawWidth += field.getLength();
+        this.keyWidth = normalizer.getWidth();
+        this.requiredLength = normalizer.getRequiredLength();
+        this.entryWidth = keyWidth + rawWidth;
+        this.keyScratch = new byte[keyWidth];
+        this.entries = new byte[INITIAL_CAPACITY * entryWidth];
+        this.sums = new long[INITIAL_CAPACITY * sumFields.length];
+        this.highs = new long[INITIAL_CAPACITY * sumFields.length];
+        this.wide = new boolean[INITIAL_CAPACITY * sumFields.length];
+    }
+
+    /** Adds one record to its group; a record too short to hold every group field is skipped. */
+    public void accept(ByteBuffer record, int start, int length) {
+        if (length < requiredLength) return;
+        normalizer.normalize(record, start, keyScratch, 0);
+        int group = findOrInsert(keyScratch, 0, hash(keyScratch, 0));
+        if (group < 0) {
+            group = -group - 1;
+            int position = group * entryWidth + keyWidth;
+            for (CompiledField field : keyFields) {
+                record.get(start + field.getOffset(), entries, position, field.getLength());
+                position += field.getLength();
+            }
+        }
+        counts[group]++;
+        int base = group * sumFields.length;
+        for (int i = 0; i < sumFields.length; i++) {
+            CompiledField field = sumFields[i];
+            if (field.getOffset() + field.getLength() > length) continue;
+            int offset = start + field.getOffset();
+            if (sumFitsLong[i]) {
+                add(base + i, switch (field.getEncoding()) {
+                    case PACKED -> FieldDecoder.decodePackedLong(record, offset, field.getLength());
+                    case ZONED -> FieldDecoder.decodeZonedLong(record, offset, field.getLength());
+                    default -> FieldDecoder.decodeBinary(record, offset, field.getLength(), field.isSigned());
+                });
+            } else {
+                Number value = field.getEncoding() == FieldEncoding.PACKED
+                        ? FieldDecoder.decodePacked(record, offset, field.getLength())
+                        : FieldDecoder.decodeZoned(record, offset, field.getLength());
+                addBig(base + i, value instanceof BigInteger big ? big : BigInteger.valueOf(value.longValue()));
+            }
+        }
+    }
+
+    /** Accepts records of the aggregated layout and ignores every other record. */
+    @Override
+    public void onRecord(RecordLayout layout, ByteBuffer data, int start, int length) {
+        if (layout != null && layout.getName().equals(aggregator.getLayout().getName())) accept(data, start, length);
+    }
+
+    /** Folds another partial of the same aggregator into this one. */
+    public void merge(PartialAggregate other) {
+        for (int g = 0; g < other.groups; g++) {
+            int group = findOrInsert(other.entries, g * entryWidth, other.hashes[g]);
+            if (group < 0) {
+                group = -group - 1;
+                System.arraycopy(other.entries, g * entryWidth + keyWidth, entries, group * entryWidth + keyWidth, entryWidth - keyWidth);
+            }
+            counts[group] += other.counts[g];
+            for (int i = 0; i < sumFields.length; i++) {
+                int mine = group * sumFields.length + i;
+                int theirs = g * sumFields.length + i;
+                if (!other.wide[theirs]) {
+                    add(mine, other.sums[theirs]);
+                } else {
+                    widen(mine);
+                    addWide(mine, other.highs[theirs], other.sums[theirs]);
+                }
+            }
+        }
+    }
+
+    /** The groups in ascending key order. */
+    public List<GroupResult> results() {
+        Integer[] order = new Integer[groups];
+        for (int i = 0; i < groups; i++) order[i] = i;
+        Arrays.sort(order, (a, b) -> Arrays.compareUnsigned(entries, a * entryWidth, a * entryWidth + keyWidth,
+                entries, b * entryWidth, b * entryWidth + keyWidth));
+        ByteBuffer view = ByteBuffer.wrap(entries);
+        byte[] scratch = new byte[Math.max(1, entryWidth)];
+        List<GroupResult> results = new ArrayList<>(groups);
+        for (int group : order) {
+            GroupResult result = new GroupResult();
+            int position = group * entryWidth + keyWidth;
+            for (CompiledField field : keyFields) {
+                result.getKeys().put(field.getPath(), FieldDecoder.decode(field, view, position, aggregator.getCharset(), scratch));
+                position += field.getLength();
+            }
+            result.setCount(counts[group]);
+            for (int i = 0; i < sumFields.length; i++) {
+                int slot = group * sumFields.length + i;
+                BigInteger total = wide[slot] ? toBigInteger(highs[slot], sums[slot]) : BigInteger.valueOf(sums[slot]);
+                result.getSums().put(sumFields[i].getPath(), new BigDecimal(total, sumFields[i].getScale()));
+            }
+            results.add(result);
+        }
+        return results;
+    }
+
+    // --- 64/128-bit accumulation ---
+
+    private void add(int slot, long value) {
+        if (!wide[slot]) {
+            long current = sums[slot];
+            long sum = current + value;
+            if (((current ^ sum) & (value ^ sum)) >= 0) {
+                sums[slot] = sum;
+                return;
+            }
+            widen(slot);
+        }
+        addWide(slot, value >> 63, value);
+    }
+
+    private void addBig(int slot, BigInteger value) {
+        if (value.bitLength() < 64) {
+            add(slot, value.longValue());
+            return;
+        }
+        widen(slot);
+        addWide(slot, value.shiftRight(64).longValue(), value.longValue());
+    }
+
+    private void widen(int slot) {
+        if (wide[slot]) return;
+        wide[slot] = true;
+        highs[slot] = sums[slot] >> 63;
+    }
+
+    private void addWide(int slot, long high, long low) {
+        long current = sums[slot];
+        long sum = current + low;
+        sums[slot] = sum;
+        highs[slot] += high + (Long.compareUnsigned(sum, current) < 0 ? 1 : 0);
+    }
+
+    private static BigInteger toBigInteger(long high, long low) {
+        BigInteger unsignedLow = BigInteger.valueOf(low & Long.MAX_VALUE);
+        if (low < 0) unsignedLow = unsignedLow.setBit(63);
+        return BigInteger.valueOf(high).shiftLeft(64).add(unsignedLow);
+    }
+
+    // --- Hash table ---
+
+    private static int hash(byte[] key, int offset, int length) {
+        int h = 1;
+        for (int i = offset; i < offset + length; i++) h = 31 * h + key[i];
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        return h ^ (h >>> 13);
+    }
+
+    private int hash(byte[] key, int offset) {
+        return hash(key, offset, keyWidth);
+    }
+
+    /**
+     * Returns the group holding the key, or {@code -(group + 1)} for a group that was
+     * just created (whose raw key bytes the caller still has to fill in).
+     */
+    private int findOrInsert(byte[] key, int offset, int hash) {
+        int mask = table.length - 1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            int entry = table[slot];
+            if (entry == 0) break;
+            int group = entry - 1;
+            if (hashes[group] == hash && Arrays.equals(entries, group * entryWidth, group * entryWidth + keyWidth,
+                    key, offset, offset + keyWidth)) {
+                return group;
+            }
+        }
+        if (groups == hashes.length) grow();
+        int group = groups++;
+        hashes[group] = hash;
+        System.arraycopy(key, offset, entries, group * entryWidth, keyWidth);
+        if (groups * 2 > table.length) rehash(table.length * 2);
+        insert(group);
+        return -group - 1;
+    }
+
+    private void insert(int group) {
+        int mask = table.length - 1;
+        int slot = hashes[group] & mask;
+        while (table[slot] != 0) slot = (slot + 1) & mask;
+        table[slot] = group + 1;
+    }
+
+    private void rehash(int capacity) {
+        table = new int[capacity];
+        for (int g = 0; g < groups - 1; g++) insert(g);
+    }
+
+    private void grow() {
+        int capacity = hashes.length * 2;
+        hashes = Arrays.copyOf(hashes, capacity);
+        counts = Arrays.copyOf(counts, capacity);
+        entries = Arrays.copyOf(entries, capacity * entryWidth);
+        sums = Arrays.copyOf(sums, capacity * sumFields.length);
+        highs = Arrays.copyOf(highs, capacity * sumFields.length);
+        wide = Arrays.copyOf(wide, capacity * sumFields.length);
+    }
+}
@@ -0,0 +1,57 @@
+package com.cobol.converter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.Data;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A committed point of a {@link FileConverter} run: every record before
+ * {@link #getInputOffset()} is durably written, and each output file is valid up to its
+ * recorded position. Stored as a small JSON sidecar that is replaced atomically.
+ */
+@Data
+public class ConversionCheckpoint {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    private int version = 2;
+    private int recordLength;
+    /** Size and modification time of the input file, or -1 when converting from a channel. */
+    private long inputSize = -1;
+    private long inputModified = -1;
+    /** Input bytes whose records are fully written; a resumed run continues from here. */
+    private long inputOffset;
+    private long unclassifiedRecords;
+    private Map<String, Long> recordCounts = new LinkedHashMap<>();
+    /** Decoded field paths of each layout, keyed by layout name; a resumed run must write the same columns. */
+    private Map<String, List<String>> columns = new LinkedHashMap<>();
+    /** Committed length of each layout's output file, keyed by layout name. */
+    private Map<String, Long> outputPositions = new LinkedHashMap<>();
+
+    public static ConversionCheckpoint read(Path file) throws IOException {
+        return MAPPER.readValue(file.toFile(), ConversionCheckpoint.class);
+    }
+
+    /** Writes to a temporary sibling, forces it to disk and moves it over {@code file} atomically. */
+    public void write(Path file) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.wrap(MAPPER.writeValueAsBytes(this));
+            while (buffer.hasRemaining()) channel.write(buffer);
+            channel.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+}
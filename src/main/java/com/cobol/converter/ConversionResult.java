@@ -0,0 +1,19 @@
+package com.cobol.converter;
+
+import lombok.Data;
+
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Data
+public class ConversionResult {
+    private long bytesRead;
+    /** Input offset a checkpointed run resumed from; 0 for a fresh conversion. */
+    private long resumedFrom;
+    private long unclassifiedRecords;
+    private Map<String, Long> recordCounts = new LinkedHashMap<>();
+    private Map<String, Path> outputFiles = new LinkedHashMap<>();
+    /** Outcome of the control-total check, or {@code null} when none was configured. */
+    private ReconciliationReport reconciliation;
+}
@@ -0,0 +1,38 @@
+package com.cobol.converter;
+
+import com.cobol.decoder.Projection;
+import com.cobol.rules.Reconciliation;
+import lombok.Data;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Tuning and decoding options for {@link FileConverter}.
+ */
+@Data
+public class ConverterOptions {
+    private Charset charset = StandardCharsets.ISO_8859_1;
+    /** Fixed record length in bytes; 0 means the longest candidate layout. */
+    private int recordLength;
+    /** Number of records read, classified and decoded as one unit. */
+    private int batchRecords = 4096;
+    /** Capacity of every inter-stage queue, in batches. */
+    private int queueCapacity = 4;
+    /** Threads used to inflate gzip members when the input is compressed. */
+    private int decompressionThreads = Runtime.getRuntime().availableProcessors();
+    /** Optional projection per layout name; layouts without an entry are decoded in full. */
+    private Map<String, Projection> projections = new HashMap<>();
+    /** Control totals to verify while converting, usually the rule's own reconciliation block. */
+    private Reconciliation reconciliation;
+    /**
+     * Sidecar file for periodic checkpoints, or {@code null} to disable them. When the file
+     * exists the conversion resumes from it; it is deleted once the conversion completes.
+     */
+    private Path checkpointFile;
+    /** Input bytes converted between two checkpoints. */
+    private long checkpointIntervalBytes = 256L << 20;
+}
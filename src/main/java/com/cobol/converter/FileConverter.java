@@ -0,0 +1,475 @@
+package com.cobol.converter;
+
+import com.cobol.decoder.CompiledField;
+import com.cobol.decoder.DecodePlan;
+import com.cobol.decoder.Projection;
+import com.cobol.decoder.RecordDecoder;
+import com.cobol.io.DataFiles;
+import com.cobol.parser.model.RecordLayout;
+import com.cobol.rules.RecordClassifier;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Converts a fixed-length data file into one JSON Lines file per {@link RecordLayout}.
+ * <p>
+ * The conversion runs as a staged pipeline: a reader fills batches from disk, a
+ * classifier tags every record with its layout, a decoder turns records into JSON and
+ * one writer per layout appends the result to its output file. Stages are connected by
+ * bounded queues and the reader draws its buffers from a fixed pool, so a slow stage
+ * applies backpressure instead of letting memory grow. Gzip-compressed input is
+ * detected and decompressed on separate threads ahead of the reader. When the options
+ * carry a {@link com.cobol.rules.Reconciliation}, control totals are checked by the
+ * decoder in the same pass.
+ * <p>
+ * With a checkpoint file configured, the decoder periodically sends a marker through
+ * every writer queue; each writer forces its file to disk and reports its position, and
+ * once all have reported the {@link ConversionCheckpoint} is saved. A later run with the
+ * same checkpoint file skips the committed input, truncates the outputs back to their
+ * committed positions and appends from there.
+ */
+public class FileConverter {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory().setRootValueSeparator(null);
+
+    private final RecordClassifier classifier;
+    private final ConverterOptions options;
+    private final int recordLength;
+    private final List<DecodePlan> plans = new ArrayList<>();
+
+    public FileConverter(RecordClassifier classifier) {
+        this(classifier, new ConverterOptions());
+    }
+
+    public FileConverter(RecordClassifier classifier, ConverterOptions options) {
+        this.classifier = classifier;
+        this.options = options;
+        int length = options.getRecordLength();
+        if (length <= 0) {
+            for (RecordLayout layout : classifier.getLayouts()) length = Math.max(length, DecodePlan.recordLength(layout));
+        }
+        if (length <= 0) throw new IllegalArgumentException("Record length could not be determined from the layouts");
+        if (options.getCheckpointFile() != null && options.getReconciliation() != null) {
+            throw new IllegalArgumentException("Checkpointing cannot be combined with reconciliation: "
+                    + "control totals are not part of the checkpoint");
+        }
+        this.recordLength = length;
+        for (RecordLayout layout : classifier.getLayouts()) {
+            Projection projection = options.getProjections().getOrDefault(layout.getName(), Projection.all());
+            plans.add(DecodePlan.compile(layout, projection));
+        }
+    }
+
+    public ConversionResult convert(Path input, Path outputDir) throws IOException {
+        ConversionCheckpoint identity = newCheckpoint();
+        identity.setInputSize(Files.size(input));
+        identity.setInputModified(Files.getLastModifiedTime(input).toMillis());
+        try (ReadableByteChannel channel = DataFiles.open(input, options.getDecompressionThreads())) {
+            return convert(channel, outputDir, identity);
+        }
+    }
+
+    /**
+     * Converts from the channel's current position. When resuming from a checkpoint the
+     * committed input is skipped, by seeking if the channel is seekable.
+     */
+    public ConversionResult convert(ReadableByteChannel input, Path outputDir) throws IOException {
+        return convert(input, outputDir, newCheckpoint());
+    }
+
+    private ConversionResult convert(ReadableByteChannel input, Path outputDir, ConversionCheckpoint identity)
+            throws IOException {
+        Files.createDirectories(outputDir);
+        List<RecordLayout> layouts = classifier.getLayouts();
+        List<BlockingQueue<OutputChunk>> writerQueues = new ArrayList<>();
+        ConversionResult result = new ConversionResult();
+        Path checkpointFile = options.getCheckpointFile();
+        ConversionCheckpoint resume = checkpointFile != null && Files.exists(checkpointFile)
+                ? validate(ConversionCheckpoint.read(checkpointFile), identity, outputDir) : null;
+        CheckpointCommitter committer = checkpointFile == null ? null : new CheckpointCommitter(checkpointFile, layouts.size());
+        if (resume != null) {
+            skip(input, resume.getInputOffset());
+            result.setResumedFrom(resume.getInputOffset());
+        }
+        Reconciler reconciler = options.getReconciliation() == null ? null
+                : new Reconciler(options.getReconciliation(), classifier, options.getCharset());
+        for (RecordLayout layout : layouts) {
+            writerQueues.add(new ArrayBlockingQueue<>(options.getQueueCapacity()));
+            result.getOutputFiles().put(layout.getName(), outputDir.resolve(layout.getName() + ".jsonl"));
+        }
+
+        BlockingQueue<RecordBatch> pool = new ArrayBlockingQueue<>(options.getQueueCapacity() * 2 + 2);
+        while (pool.remainingCapacity() > 0) {
+            pool.add(new RecordBatch(new byte[options.getBatchRecords() * recordLength], options.getBatchRecords()));
+        }
+        BlockingQueue<RecordBatch> read = new ArrayBlockingQueue<>(options.getQueueCapacity());
+        BlockingQueue<RecordBatch> classified = new ArrayBlockingQueue<>(options.getQueueCapacity());
+
+        ExecutorService executor = Executors.newFixedThreadPool(3 + layouts.size(), stageThreads());
+        CompletionService<Void> stages = new ExecutorCompletionService<>(executor);
+        int stageCount = 3 + layouts.size();
+        try {
+            long startOffset = resume == null ? 0 : resume.getInputOffset();
+            stages.submit(() -> readStage(input, startOffset, pool, read, result));
+            stages.submit(() -> classifyStage(read, classified));
+            stages.submit(() -> decodeStage(classified, pool, writerQueues, reconciler, result,
+                    resume, identity, committer));
+            for (int i = 0; i < layouts.size(); i++) {
+                String name = layouts.get(i).getName();
+                Path target = result.getOutputFiles().get(name);
+                BlockingQueue<OutputChunk> queue = writerQueues.get(i);
+                long position = resume == null ? -1 : resume.getOutputPositions().get(name);
+                stages.submit(() -> writeStage(queue, target, name, position, committer));
+            }
+            awaitAll(stages, stageCount, executor);
+        } finally {
+            executor.shutdownNow();
+        }
+        if (checkpointFile != null) Files.deleteIfExists(checkpointFile);
+        return result;
+    }
+
+    // --- Stages ---
+
+    private Void readStage(ReadableByteChannel input, long offset, BlockingQueue<RecordBatch> pool,
+                           BlockingQueue<RecordBatch> out, ConversionResult result) throws IOException, InterruptedException {
+        while (true) {
+            RecordBatch batch = pool.take();
+            ByteBuffer target = ByteBuffer.wrap(batch.data);
+            while (target.hasRemaining() && input.read(target) >= 0) {
+                // keep filling until the batch is full or the input is exhausted
+            }
+            batch.length = target.position();
+            batch.startOffset = offset;
+            offset += batch.length;
+            if (batch.length == 0) {
+                pool.put(batch);
+                break;
+            }
+            out.put(batch);
+            if (target.hasRemaining()) break;
+        }
+        result.setBytesRead(offset);
+        out.put(RecordBatch.END);
+        return null;
+    }
+
+    private Void classifyStage(BlockingQueue<RecordBatch> in, BlockingQueue<RecordBatch> out) throws InterruptedException {
+        RecordClassifier local = classifier.copy();
+        while (true) {
+            RecordBatch batch = in.take();
+            if (batch == RecordBatch.END) break;
+            ByteBuffer buffer = ByteBuffer.wrap(batch.data);
+            batch.records = (batch.length + recordLength - 1) / recordLength;
+            for (int i = 0; i < batch.records; i++) {
+                int start = i * recordLength;
+                batch.types[i] = local.classify(buffer, start, Math.min(recordLength, batch.length - start));
+            }
+            out.put(batch);
+        }
+        out.put(RecordBatch.END);
+        return null;
+    }
+
+    private Void decodeStage(BlockingQueue<RecordBatch> in, BlockingQueue<RecordBatch> pool,
+                             List<BlockingQueue<OutputChunk>> writers, Reconciler reconciler,
+                             ConversionResult result, ConversionCheckpoint resume, ConversionCheckpoint identity,
+                             CheckpointCommitter committer) throws IOException, InterruptedException {
+        List<RecordLayout> layouts = classifier.getLayouts();
+        LayoutEncoder[] encoders = new LayoutEncoder[layouts.size()];
+        for (int i = 0; i < encoders.length; i++) {
+            encoders[i] = new LayoutEncoder(new RecordDecoder(plans.get(i), options.getCharset()));
+        }
+        long unclassified = 0;
+        if (resume != null) {
+            unclassified = resume.getUnclassifiedRecords();
+            for (int i = 0; i < encoders.length; i++) {
+                encoders[i].records = resume.getRecordCounts().getOrDefault(layouts.get(i).getName(), 0L);
+            }
+        }
+        long lastCheckpoint = resume == null ? 0 : resume.getInputOffset();
+        while (true) {
+            RecordBatch batch = in.take();
+            if (batch == RecordBatch.END) break;
+            long endOffset = batch.startOffset + batch.length;
+            boolean wholeRecords = batch.length % recordLength == 0;
+            ByteBuffer buffer = ByteBuffer.wrap(batch.data);
+            for (int i = 0; i < batch.records; i++) {
+                int type = batch.types[i];
+                if (type == RecordClassifier.UNCLASSIFIED) {
+                    unclassified++;
+                    continue;
+                }
+                int start = i * recordLength;
+                int length = Math.min(recordLength, batch.length - start);
+                encoders[type].encode(buffer, start, length);
+                if (reconciler != null) reconciler.accept(type, buffer, start, length);
+            }
+            pool.put(batch);
+            for (int i = 0; i < encoders.length; i++) {
+                OutputChunk chunk = encoders[i].drain();
+                if (chunk != null) writers.get(i).put(chunk);
+            }
+            if (committer != null && wholeRecords && endOffset - lastCheckpoint >= options.getCheckpointIntervalBytes()) {
+                ConversionCheckpoint checkpoint = newCheckpoint();
+                checkpoint.setInputSize(identity.getInputSize());
+                checkpoint.setInputModified(identity.getInputModified());
+                checkpoint.setInputOffset(endOffset);
+                checkpoint.setUnclassifiedRecords(unclassified);
+                for (int i = 0; i < encoders.length; i++) {
+                    checkpoint.getRecordCounts().put(layouts.get(i).getName(), encoders[i].records);
+                }
+                OutputChunk marker = new OutputChunk(new byte[0], checkpoint);
+                for (BlockingQueue<OutputChunk> writer : writers) writer.put(marker);
+                lastCheckpoint = endOffset;
+            }
+        }
+        for (int i = 0; i < encoders.length; i++) {
+            result.getRecordCounts().put(layouts.get(i).getName(), encoders[i].records);
+            writers.get(i).put(OutputChunk.END);
+        }
+        result.setUnclassifiedRecords(unclassified);
+        if (reconciler != null) result.setReconciliation(reconciler.report());
+        return null;
+    }
+
+    /** Appends chunks to the target; a non-negative {@code position} resumes a checkpointed file from there. */
+    private Void writeStage(BlockingQueue<OutputChunk> in, Path target, String layoutName, long position,
+                            CheckpointCommitter committer) throws IOException, InterruptedException {
+        try (FileChannel channel = position < 0
+                ? FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)
+                : FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            if (position >= 0) channel.truncate(position).position(position);
+            while (true) {
+                OutputChunk chunk = in.take();
+                if (chunk == OutputChunk.END) break;
+                if (chunk.checkpoint != null) {
+                    channel.force(false);
+                    committer.report(chunk.checkpoint, layoutName, channel.position());
+                    continue;
+                }
+                ByteBuffer buffer = ByteBuffer.wrap(chunk.data);
+                while (buffer.hasRemaining()) channel.write(buffer);
+            }
+        }
+        return null;
+    }
+
+    // --- Checkpoints ---
+
+    private ConversionCheckpoint newCheckpoint() {
+        ConversionCheckpoint checkpoint = new ConversionCheckpoint();
+        checkpoint.setRecordLength(recordLength);
+        for (int i = 0; i < plans.size(); i++) {
+            List<String> paths = plans.get(i).getFields().stream().map(CompiledField::getPath).toList();
+            checkpoint.getColumns().put(classifier.getLayouts().get(i).getName(), paths);
+        }
+        return checkpoint;
+    }
+
+    /** Rejects a checkpoint taken for different input, layouts, projections or outputs than this run's. */
+    private ConversionCheckpoint validate(ConversionCheckpoint checkpoint, ConversionCheckpoint identity,
+                                          Path outputDir) throws IOException {
+        Path file = options.getCheckpointFile();
+        if (checkpoint.getRecordLength() != recordLength) {
+            throw new IOException("Checkpoint " + file + " was taken with record length " + checkpoint.getRecordLength());
+        }
+        if (identity.getInputSize() >= 0 && checkpoint.getInputSize() >= 0
+                && (identity.getInputSize() != checkpoint.getInputSize() || identity.getInputModified() != checkpoint.getInputModified())) {
+            throw new IOException("Input has changed since checkpoint " + file + " was taken");
+        }
+        List<String> names = new ArrayList<>();
+        for (RecordLayout layout : classifier.getLayouts()) names.add(layout.getName());
+        if (!checkpoint.getOutputPositions().keySet().equals(new HashSet<>(names))) {
+            throw new IOException("Checkpoint " + file + " covers layouts " + checkpoint.getOutputPositions().keySet()
+                    + " but the classifier has " + names);
+        }
+        if (!checkpoint.getColumns().equals(identity.getColumns())) {
+            throw new IOException("Checkpoint " + file + " was taken with different projections than this run's");
+        }
+        for (String name : names) {
+            Path output = outputDir.resolve(name + ".jsonl");
+            long committed = checkpoint.getOutputPositions().get(name);
+            long actual = Files.exists(output) ? Files.size(output) : 0;
+            if (actual < committed) {
+                throw new IOException("Output " + output + " is shorter than its checkpointed length " + committed);
+            }
+        }
+        return checkpoint;
+    }
+
+    /** Moves past input that a checkpoint has already committed. */
+    private static void skip(ReadableByteChannel input, long bytes) throws IOException {
+        if (input instanceof SeekableByteChannel seekable) {
+            seekable.position(seekable.position() + bytes);
+            return;
+        }
+        ByteBuffer scratch = ByteBuffer.allocate(1 << 20);
+        while (bytes > 0) {
+            scratch.clear().limit((int) Math.min(scratch.capacity(), bytes));
+            int n = input.read(scratch);
+            if (n < 0) throw new IOException("Input ended " + bytes + " bytes before the checkpoint offset");
+            bytes -= n;
+        }
+    }
+
+    /**
+     * Gathers the output positions reported by every writer for a checkpoint and saves it
+     * once the last writer has reported. Writers pass markers in order, so checkpoints
+     * complete in order; a late save of an older one is skipped.
+     */
+    private static final class CheckpointCommitter {
+        private final Path file;
+        private final int writers;
+        private long savedOffset = -1;
+
+        CheckpointCommitter(Path file, int writers) {
+            this.file = file;
+            this.writers = writers;
+        }
+
+        synchronized void report(ConversionCheckpoint checkpoint, String layoutName, long position) throws IOException {
+            checkpoint.getOutputPositions().put(layoutName, position);
+            if (checkpoint.getOutputPositions().size() < writers || checkpoint.getInputOffset() <= savedOffset) return;
+            checkpoint.write(file);
+            savedOffset = checkpoint.getInputOffset();
+        }
+    }
+
+    // --- Helpers ---
+
+    /**
+     * Waits for the stages in completion order. The first failure interrupts every other
+     * stage, which would otherwise stay blocked on a queue that nobody drains, and is
+     * rethrown.
+     */
+    private static void awaitAll(CompletionService<Void> stages, int count, ExecutorService executor) throws IOException {
+        try {
+            for (int i = 0; i < count; i++) {
+                try {
+                    stages.take().get();
+                } catch (ExecutionException e) {
+                    executor.shutdownNow();
+                    Throwable cause = e.getCause();
+                    if (cause instanceof IOException io) throw io;
+                    if (cause instanceof RuntimeException re) throw re;
+                    throw new IOException("Conversion stage failed", cause);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Conversion interrupted", e);
+        }
+    }
+
+    private static ThreadFactory stageThreads() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "converter-stage-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /** A pooled unit of raw input records plus the layout index assigned to each. */
+    static final class RecordBatch {
+        static final RecordBatch END = new RecordBatch(new byte[0], 0);
+
+        final byte[] data;
+        final int[] types;
+        int length;
+        int records;
+        long startOffset;
+
+        RecordBatch(byte[] data, int capacity) {
+            this.data = data;
+            this.types = new int[capacity];
+        }
+    }
+
+    /** Encoded JSON lines for one layout, produced from one batch, or a checkpoint marker. */
+    static final class OutputChunk {
+        static final OutputChunk END = new OutputChunk(new byte[0]);
+
+        final byte[] data;
+        final ConversionCheckpoint checkpoint;
+
+        OutputChunk(byte[] data) {
+            this(data, null);
+        }
+
+        OutputChunk(byte[] data, ConversionCheckpoint checkpoint) {
+            this.data = data;
+            this.checkpoint = checkpoint;
+        }
+    }
+
+    /** Streams decoded records of one layout as JSON lines into an in-memory chunk. */
+    private static final class LayoutEncoder {
+        private final RecordDecoder decoder;
+        private final List<CompiledField> fields;
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(64 * 1024);
+        private final JsonGenerator generator;
+        private long records;
+
+        LayoutEncoder(RecordDecoder decoder) throws IOException {
+            this.decoder = decoder;
+            this.fields = decoder.getPlan().getFields();
+            this.generator = JSON_FACTORY.createGenerator(buffer);
+        }
+
+        void encode(ByteBuffer data, int start, int length) throws IOException {
+            generator.writeStartObject();
+            for (CompiledField field : fields) {
+                generator.writeFieldName(field.getPath());
+                writeValue(decoder.decodeField(field, data, start, length));
+            }
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+            records++;
+        }
+
+        OutputChunk drain() throws IOException {
+            generator.flush();
+            if (buffer.size() == 0) return null;
+            OutputChunk chunk = new OutputChunk(buffer.toByteArray());
+            buffer.reset();
+            return chunk;
+        }
+
+        private void writeValue(Object value) throws IOException {
+            if (value == null) generator.writeNull();
+            else if (value instanceof String s) generator.writeString(s);
+            else if (value instanceof Long l) generator.writeNumber(l);
+            else if (value instanceof BigDecimal d) generator.writeNumber(d);
+            else if (value instanceof BigInteger i) generator.writeNumber(i);
+            else if (value instanceof Float f) generator.writeNumber(f);
+            else if (value instanceof Double d) generator.writeNumber(d);
+            else generator.writeString(value.toString());
+        }
+    }
+}
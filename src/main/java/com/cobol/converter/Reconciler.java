@@ -0,0 +1,126 @@
+package com.cobol.converter;
+
+import com.cobol.aggregate.GroupByAggregator;
+import com.cobol.aggregate.GroupResult;
+import com.cobol.aggregate.PartialAggregate;
+import com.cobol.decoder.DecodePlan;
+import com.cobol.decoder.Projection;
+import com.cobol.decoder.RecordDecoder;
+import com.cobol.parser.model.RecordLayout;
+import com.cobol.rules.ControlTotal;
+import com.cobol.rules.Reconciliation;
+import com.cobol.rules.RecordClassifier;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Checks a file's control totals in the same pass that decodes it. Detail records are
+ * counted and their amount fields summed as they stream past; the trailer's count and
+ * total fields are captured when the trailer is seen. {@link #report()} compares the
+ * two once the input is exhausted.
+ */
+public class Reconciler {
+
+    private final Reconciliation spec;
+    private final int detailIndex;
+    private final int trailerIndex;
+    private final PartialAggregate detailTotals;
+    private final RecordDecoder trailerDecoder;
+    private final List<String> detailPaths = new ArrayList<>();
+    private final List<String> trailerPaths = new ArrayList<>();
+    private Map<String, Object> trailer;
+    private int trailerRecords;
+
+    public Reconciler(Reconciliation spec, RecordClassifier classifier, Charset charset) {
+        this.spec = spec;
+        this.detailIndex = resolve(classifier, spec.getDetailLayout());
+        this.trailerIndex = resolve(classifier, spec.getTrailerLayout());
+        for (ControlTotal total : spec.getTotals()) {
+            detailPaths.add(total.getDetailField().toUpperCase());
+            trailerPaths.add(total.getTrailerField().toUpperCase());
+        }
+        RecordLayout detail = classifier.getLayouts().get(detailIndex);
+        this.detailTotals = new GroupByAggregator(detail, List.of(), detailPaths, charset).newPartial();
+
+        List<String> captured = new ArrayList<>(trailerPaths);
+        if (spec.getCountField() != null) captured.add(spec.getCountField());
+        RecordLayout trailerLayout = classifier.getLayouts().get(trailerIndex);
+        this.trailerDecoder = captured.isEmpty() ? null
+                : new RecordDecoder(DecodePlan.compile(trailerLayout, Projection.of(captured)), charset);
+    }
+
+    /** Feeds one classified record; records of other layouts are ignored. */
+    public void accept(int layoutIndex, ByteBuffer data, int start, int length) {
+        if (layoutIndex == detailIndex) {
+            detailTotals.accept(data, start, length);
+        } else if (layoutIndex == trailerIndex) {
+            trailerRecords++;
+            if (trailerDecoder != null) trailer = trailerDecoder.decode(data, start, length);
+        }
+    }
+
+    public ReconciliationReport report() {
+        ReconciliationReport report = new ReconciliationReport();
+        List<GroupResult> results = detailTotals.results();
+        GroupResult totals = results.isEmpty() ? null : results.get(0);
+        report.setDetailCount(totals == null ? 0 : totals.getCount());
+        report.setTrailerRecords(trailerRecords);
+        for (String path : detailPaths) {
+            report.getDetailTotals().put(path, totals == null ? BigDecimal.ZERO : totals.getSums().get(path));
+        }
+
+        if (trailerRecords != 1) {
+            report.getMismatches().add("Expected exactly one " + spec.getTrailerLayout() + " record but found " + trailerRecords);
+        }
+        if (trailer == null) return report;
+
+        if (spec.getCountField() != null) {
+            BigDecimal count = toDecimal(trailer.get(spec.getCountField().toUpperCase()));
+            if (count == null) {
+                report.getMismatches().add("Trailer field " + spec.getCountField() + " is not numeric");
+            } else {
+                report.setTrailerCount(count.longValue());
+                if (count.compareTo(BigDecimal.valueOf(report.getDetailCount())) != 0) {
+                    report.getMismatches().add("Record count: trailer " + count.toPlainString() + ", detail " + report.getDetailCount());
+                }
+            }
+        }
+        for (int i = 0; i < trailerPaths.size(); i++) {
+            BigDecimal expected = toDecimal(trailer.get(trailerPaths.get(i)));
+            BigDecimal actual = report.getDetailTotals().get(detailPaths.get(i));
+            report.getTrailerTotals().put(trailerPaths.get(i), expected);
+            if (expected == null) {
+                report.getMismatches().add("Trailer field " + trailerPaths.get(i) + " is not numeric");
+            } else if (expected.compareTo(actual) != 0) {
+                report.getMismatches().add("Total " + detailPaths.get(i) + ": trailer " + expected.toPlainString()
+                        + ", detail " + actual.toPlainString());
+            }
+        }
+        return report;
+    }
+
+    private static int resolve(RecordClassifier classifier, String layoutName) {
+        int index = classifier.indexOf(layoutName);
+        if (index < 0) throw new IllegalArgumentException("Reconciliation refers to unknown layout " + layoutName);
+        return index;
+    }
+
+    private static BigDecimal toDecimal(Object value) {
+        if (value instanceof BigDecimal decimal) return decimal;
+        if (value instanceof Long l) return BigDecimal.valueOf(l);
+        if (value instanceof Number n) return new BigDecimal(n.toString());
+        if (value instanceof String s) {
+            try {
+                return new BigDecimal(s.trim());
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+}
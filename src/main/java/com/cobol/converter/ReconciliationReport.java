@@ -0,0 +1,23 @@
+package com.cobol.converter;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Data
+public class ReconciliationReport {
+    private long detailCount;
+    private Long trailerCount;
+    private int trailerRecords;
+    private Map<String, BigDecimal> detailTotals = new LinkedHashMap<>();
+    private Map<String, BigDecimal> trailerTotals = new LinkedHashMap<>();
+    private List<String> mismatches = new ArrayList<>();
+
+    public boolean isBalanced() {
+        return mismatches.isEmpty();
+    }
+}
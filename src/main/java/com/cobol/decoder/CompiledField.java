@@ -0,0 +1,17 @@
+package com.cobol.decoder;
+
+import lombok.Data;
+
+/**
+ * A single elementary field resolved to an absolute byte range within a record.
+ * The offset is zero-based and relative to the first byte of the record.
+ */
+@Data
+public class CompiledField {
+    private final String path;
+    private final int offset;
+    private final int length;
+    private final FieldEncoding encoding;
+    private final int scale;
+    private final boolean signed;
+}
@@ -0,0 +1,247 @@
+package com.cobol.decoder;
+
+import com.cobol.parser.model.ArrayElement;
+import com.cobol.parser.model.CobolField;
+import com.cobol.parser.model.ConditionName;
+import com.cobol.parser.model.FieldPosition;
+import com.cobol.parser.model.RecordLayout;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * A decode plan compiled from a processed {@link RecordLayout} and a {@link Projection}.
+ * Only the byte ranges of the projected elementary fields are kept, and a narrowed copy
+ * of the layout describing exactly those fields is exposed as the output schema.
+ * Plans are immutable and can be shared between threads.
+ * <p>
+ * Layout positions are display positions, where a COMP-3 or COMP field counts one
+ * position per digit. Byte offsets are therefore recomputed while compiling: every field
+ * is placed at the physical offset that corresponds to its display start and advances by
+ * its storage width, so REDEFINES overlays land on their target's bytes and fields after
+ * a computational field move up. The schema keeps the original display positions.
+ */
+public class DecodePlan {
+
+    private static final String FILLER = "FILLER";
+
+    private final RecordLayout layout;
+    private final RecordLayout schema;
+    private final List<CompiledField> fields;
+    private final int recordLength;
+
+    private DecodePlan(RecordLayout layout, RecordLayout schema, List<CompiledField> fields, int recordLength) {
+        this.layout = layout;
+        this.schema = schema;
+        this.fields = Collections.unmodifiableList(fields);
+        this.recordLength = recordLength;
+    }
+
+    public static DecodePlan compile(RecordLayout layout) {
+        return compile(layout, Projection.all());
+    }
+
+    public static DecodePlan compile(RecordLayout layout, Projection projection) {
+        List<CompiledField> compiled = new ArrayList<>();
+        Set<String> matched = new HashSet<>();
+        RecordLayout schema = new RecordLayout(layout.getName());
+        schema.setStartPosition(layout.getStartPosition());
+        schema.setEndPosition(layout.getEndPosition());
+        schema.setLength(layout.getLength());
+        schema.setRecordLength(layout.getRecordLength());
+        schema.setDescription(layout.getDescription());
+        schema.getIdentificationCriteria().putAll(layout.getIdentificationCriteria());
+
+        Deque<String> groups = new ArrayDeque<>();
+        Storage storage = new Storage();
+        for (CobolField field : layout.getFields()) {
+            CobolField kept = compileField(field, storage, groups, projection, matched, compiled);
+            if (kept != null) schema.getFields().add(kept);
+        }
+
+        Set<String> unmatched = new LinkedHashSet<>(projection.getPaths());
+        unmatched.removeAll(matched);
+        if (!unmatched.isEmpty()) {
+            throw new IllegalArgumentException("Unknown field path(s) " + unmatched + " in layout " + layout.getName());
+        }
+        return new DecodePlan(layout, schema, compiled, Math.max(layout.getRecordLength(), storage.extent));
+    }
+
+    /** Physical length in bytes of records described by the layout; see {@link #getRecordLength()}. */
+    public static int recordLength(RecordLayout layout) {
+        return compile(layout).getRecordLength();
+    }
+
+    public RecordLayout getLayout() {
+        return layout;
+    }
+
+    /** The narrowed layout describing only the projected fields. */
+    public RecordLayout getSchema() {
+        return schema;
+    }
+
+    public List<CompiledField> getFields() {
+        return fields;
+    }
+
+    /**
+     * Physical record length in bytes: the storage width of every field of the layout,
+     * FILLER included, or the record length the copybook fixes for it when that is larger.
+     */
+    public int getRecordLength() {
+        return recordLength;
+    }
+
+    /** Number of bytes a record must have for every planned field to be readable. */
+    public int getRequiredLength() {
+        int required = 0;
+        for (CompiledField field : fields) required = Math.max(required, field.getOffset() + field.getLength());
+        return required;
+    }
+
+    private static CobolField compileField(CobolField field, Storage storage, Deque<String> groups,
+                                           Projection projection, Set<String> matched, List<CompiledField> out) {
+        String name = field.getName().toUpperCase();
+        int offset = storage.offsetOf(field.getStartPosition());
+        if (!field.getArrayElements().isEmpty()) {
+            return compileTable(field, offset, storage, name, groups, projection, matched, out);
+        }
+        if (!field.getChildren().isEmpty()) {
+            groups.push(name);
+            CobolField copy = copyOf(field);
+            int end = offset;
+            for (CobolField child : field.getChildren()) {
+                CobolField kept = compileField(child, storage, groups, projection, matched, out);
+                if (kept != null) copy.addChild(kept);
+                end = Math.max(end, storage.offsetOf(child.getStartPosition() + child.getLength()));
+            }
+            groups.pop();
+            storage.place(field.getStartPosition(), field.getLength(), offset, end - offset);
+            return copy.getChildren().isEmpty() ? null : copy;
+        }
+
+        FieldEncoding encoding = FieldEncoding.of(field.getDataType(), field.getUsage());
+        int occurs = Math.max(1, field.getOccursCount());
+        int elementLength = encoding.storageLength(field.getPicture(), field.getLength() / occurs);
+        storage.place(field.getStartPosition(), field.getLength(), offset, elementLength * occurs);
+        if (FILLER.equals(name) || field.getLength() <= 0) return null;
+
+        int scale = field.getDecimalPlaces();
+        if (field.getOccursCount() > 0) {
+            boolean any = false;
+            for (int i = 1; i <= field.getOccursCount(); i++) {
+                String path = name + "[" + i + "]";
+                if (projection.selects(selectors(groups, path, name), matched)) {
+                    out.add(new CompiledField(path, offset + (i - 1) * elementLength, elementLength, encoding, scale, field.isSigned()));
+                    any = true;
+                }
+            }
+            return any ? copyOf(field) : null;
+        }
+        if (!projection.selects(selectors(groups, name), matched)) return null;
+        out.add(new CompiledField(name, offset, elementLength, encoding, scale, field.isSigned()));
+        return copyOf(field);
+    }
+
+    /**
+     * Compiles an expanded OCCURS group. Every element has the storage width of the first
+     * one, whose fields follow each other without gaps.
+     */
+    private static CobolField compileTable(CobolField table, int offset, Storage storage, String name, Deque<String> groups,
+                                           Projection projection, Set<String> matched, List<CompiledField> out) {
+        List<FieldPosition> layoutOfElement = table.getArrayElements().get(0).getFields();
+        int[] relative = new int[layoutOfElement.size()];
+        int[] widths = new int[layoutOfElement.size()];
+        int elementWidth = 0;
+        for (int j = 0; j < layoutOfElement.size(); j++) {
+            FieldPosition position = layoutOfElement.get(j);
+            relative[j] = elementWidth;
+            widths[j] = FieldEncoding.of(position.getDataType(), position.getUsage())
+                    .storageLength(position.getPicture(), position.getLength());
+            elementWidth += widths[j];
+        }
+        storage.place(table.getStartPosition(), table.getLength(), offset, elementWidth * table.getArrayElements().size());
+
+        CobolField copy = copyOf(table);
+        for (ArrayElement element : table.getArrayElements()) {
+            String elementPath = name + "[" + element.getIndex() + "]";
+            int elementOffset = offset + (element.getIndex() - 1) * elementWidth;
+            ArrayElement keptElement = new ArrayElement(element.getIndex(), element.getStartPosition(), element.getLength());
+            for (int j = 0; j < element.getFields().size() && j < widths.length; j++) {
+                FieldPosition position = element.getFields().get(j);
+                String child = position.getName().toUpperCase();
+                if (FILLER.equals(child)) continue;
+                String path = elementPath + "." + child;
+                if (!projection.selects(selectors(groups, path, name, elementPath, name + "." + child), matched)) continue;
+                FieldEncoding encoding = FieldEncoding.of(position.getDataType(), position.getUsage());
+                out.add(new CompiledField(path, elementOffset + relative[j], widths[j], encoding,
+                        FieldEncoding.countScale(position.getPicture()), isSigned(position.getPicture())));
+                keptElement.getFields().add(new FieldPosition(position.getName(), position.getStartPosition(), position.getEndPosition(),
+                        position.getLength(), position.getPicture(), position.getDataType(), position.getUsage()));
+            }
+            if (!keptElement.getFields().isEmpty()) copy.getArrayElements().add(keptElement);
+        }
+        return copy.getArrayElements().isEmpty() ? null : copy;
+    }
+
+    private static List<String> selectors(Deque<String> groups, String... own) {
+        List<String> selectors = new ArrayList<>(own.length + groups.size());
+        Collections.addAll(selectors, own);
+        selectors.addAll(groups);
+        return selectors;
+    }
+
+    private static boolean isSigned(String picture) {
+        return picture != null && picture.toUpperCase().startsWith("S");
+    }
+
+    /**
+     * Maps display positions to physical byte offsets. Each placed field records where its
+     * display start and end fall physically; a later field starting at a known display
+     * position (the next sibling, or a REDEFINES of an earlier field) continues from there,
+     * taking the furthest end when overlays differ in width. Display positions that no
+     * field ends at are counted byte for byte from the nearest known position before them.
+     */
+    private static final class Storage {
+        private final TreeMap<Integer, Integer> physical = new TreeMap<>(Map.of(1, 0));
+        private int extent;
+
+        int offsetOf(int displayPosition) {
+            Map.Entry<Integer, Integer> known = physical.floorEntry(displayPosition);
+            return known == null ? displayPosition - 1 : known.getValue() + displayPosition - known.getKey();
+        }
+
+        void place(int displayStart, int displayLength, int offset, int width) {
+            physical.merge(displayStart, offset, Math::max);
+            physical.merge(displayStart + displayLength, offset + width, Math::max);
+            extent = Math.max(extent, offset + width);
+        }
+    }
+
+    private static CobolField copyOf(CobolField original) {
+        CobolField copy = new CobolField(original.getLevel(), original.getName());
+        copy.setPicture(original.getPicture());
+        copy.setStartPosition(original.getStartPosition());
+        copy.setEndPosition(original.getEndPosition());
+        copy.setLength(original.getLength());
+        copy.setDataType(original.getDataType());
+        copy.setUsage(original.getUsage());
+        copy.setSigned(original.isSigned());
+        copy.setDecimal(original.isDecimal());
+        copy.setDecimalPlaces(original.getDecimalPlaces());
+        copy.setOccursCount(original.getOccursCount());
+        copy.setRedefines(original.getRedefines());
+        copy.setValue(original.getValue());
+        original.getConditionNames().forEach(cn -> copy.getConditionNames().add(new ConditionName(cn.getName(), cn.getValue())));
+        return copy;
+    }
+}
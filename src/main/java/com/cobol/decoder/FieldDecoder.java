@@ -0,0 +1,151 @@
+package com.cobol.decoder;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+/**
+ * Stateless conversions from raw field bytes to Java values. All reads use absolute
+ * positions so the source buffer's position and limit are never modified.
+ */
+public final class FieldDecoder {
+
+    private static final int MAX_LONG_DIGITS = 18;
+
+    private FieldDecoder() {
+    }
+
+    public static Object decode(CompiledField field, ByteBuffer buffer, int offset, Charset charset, byte[] scratch) {
+        return switch (field.getEncoding()) {
+            case TEXT -> decodeText(buffer, offset, field.getLength(), charset, scratch);
+            case ZONED -> toNumber(decodeZoned(buffer, offset, field.getLength()), field.getScale());
+            case PACKED -> toNumber(decodePacked(buffer, offset, field.getLength()), field.getScale());
+            case BINARY -> toNumber(decodeBinary(buffer, offset, field.getLength(), field.isSigned()), field.getScale());
+            case FLOAT -> buffer.getFloat(offset);
+            case DOUBLE -> buffer.getDouble(offset);
+        };
+    }
+
+    public static String decodeText(ByteBuffer buffer, int offset, int length, Charset charset, byte[] scratch) {
+        buffer.get(offset, scratch, 0, length);
+        return new String(scratch, 0, length, charset).stripTrailing();
+    }
+
+    /**
+     * Decodes a COMP-3 value into its unscaled form. Values wider than 18 digits are
+     * returned as a {@link BigInteger}, everything else as a {@code long}.
+     */
+    public static Number decodePacked(ByteBuffer buffer, int offset, int length) {
+        if (length * 2 - 1 > MAX_LONG_DIGITS) {
+            return decodePackedWide(buffer, offset, length);
+        }
+        return decodePackedLong(buffer, offset, length);
+    }
+
+    /** Allocation-free COMP-3 decoding for fields of at most 18 digits (9 bytes). */
+    public static long decodePackedLong(ByteBuffer buffer, int offset, int length) {
+        long value = 0;
+        for (int i = 0; i < length - 1; i++) {
+            int b = buffer.get(offset + i) & 0xFF;
+            value = value * 100 + packedDigit(b >>> 4) * 10 + packedDigit(b & 0x0F);
+        }
+        int last = buffer.get(offset + length - 1) & 0xFF;
+        value = value * 10 + packedDigit(last >>> 4);
+        return packedNegative(last & 0x0F) ? -value : value;
+    }
+
+    /** Tells whether a field of this encoding and length always fits a {@code long}. */
+    public static boolean fitsLong(FieldEncoding encoding, int length) {
+        return switch (encoding) {
+            case PACKED -> length * 2 - 1 <= MAX_LONG_DIGITS;
+            case ZONED -> length <= MAX_LONG_DIGITS;
+            case BINARY -> length <= 8;
+            default -> false;
+        };
+    }
+
+    private static BigInteger decodePackedWide(ByteBuffer buffer, int offset, int length) {
+        StringBuilder digits = new StringBuilder(length * 2);
+        for (int i = 0; i < length; i++) {
+            int b = buffer.get(offset + i) & 0xFF;
+            digits.append(packedDigit(b >>> 4));
+            if (i < length - 1) digits.append(packedDigit(b & 0x0F));
+        }
+        BigInteger value = new BigInteger(digits.toString());
+        return packedNegative(buffer.get(offset + length - 1) & 0x0F) ? value.negate() : value;
+    }
+
+    /**
+     * Decodes a zoned (DISPLAY) numeric. Both EBCDIC zones (F/C/D) and the ASCII
+     * overpunch conventions ('{', 'A'-'I', '}', 'J'-'R', 'p'-'y') are recognised.
+     */
+    public static Number decodeZoned(ByteBuffer buffer, int offset, int length) {
+        if (length <= MAX_LONG_DIGITS) return decodeZonedLong(buffer, offset, length);
+        BigInteger value = BigInteger.ZERO;
+        for (int i = 0; i < length; i++) {
+            value = value.multiply(BigInteger.TEN).add(BigInteger.valueOf(zonedDigit(buffer, offset, i, length)));
+        }
+        return isNegativeZone(buffer.get(offset + length - 1) & 0xFF) ? value.negate() : value;
+    }
+
+    /** Allocation-free zoned decoding for fields of at most 18 digits. */
+    public static long decodeZonedLong(ByteBuffer buffer, int offset, int length) {
+        long value = 0;
+        for (int i = 0; i < length; i++) {
+            value = value * 10 + zonedDigit(buffer, offset, i, length);
+        }
+        return isNegativeZone(buffer.get(offset + length - 1) & 0xFF) ? -value : value;
+    }
+
+    private static int zonedDigit(ByteBuffer buffer, int offset, int i, int length) {
+        int b = buffer.get(offset + i) & 0xFF;
+        int digit = i == length - 1 ? overpunchDigit(b) : (b == ' ' || b == 0x40) ? 0 : b & 0x0F;
+        if (digit > 9) throw new IllegalArgumentException("Invalid zoned decimal byte 0x" + Integer.toHexString(b) + " at offset " + (offset + i));
+        return digit;
+    }
+
+    public static long decodeBinary(ByteBuffer buffer, int offset, int length, boolean signed) {
+        return switch (length) {
+            case 2 -> signed ? buffer.getShort(offset) : buffer.getShort(offset) & 0xFFFFL;
+            case 4 -> signed ? buffer.getInt(offset) : buffer.getInt(offset) & 0xFFFFFFFFL;
+            case 8 -> buffer.getLong(offset);
+            default -> {
+                long value = signed && length > 0 && buffer.get(offset) < 0 ? -1 : 0;
+                for (int i = 0; i < length; i++) value = (value << 8) | (buffer.get(offset + i) & 0xFF);
+                yield value;
+            }
+        };
+    }
+
+    public static Number toNumber(Number unscaled, int scale) {
+        if (unscaled instanceof BigInteger big) return new BigDecimal(big, scale);
+        return scale > 0 ? BigDecimal.valueOf(unscaled.longValue(), scale) : unscaled;
+    }
+
+    public static boolean isNegativeSign(int nibble) {
+        return nibble == 0x0D || nibble == 0x0B;
+    }
+
+    private static boolean packedNegative(int nibble) {
+        if (nibble < 0x0A) throw new IllegalArgumentException("Invalid packed decimal sign 0x" + Integer.toHexString(nibble));
+        return isNegativeSign(nibble);
+    }
+
+    private static int packedDigit(int nibble) {
+        if (nibble > 9) throw new IllegalArgumentException("Invalid packed decimal digit 0x" + Integer.toHexString(nibble));
+        return nibble;
+    }
+
+    public static boolean isNegativeZone(int b) {
+        return (b & 0xF0) == 0xD0 || (b >= 0x70 && b <= 0x79) || b == '}' || (b >= 'J' && b <= 'R');
+    }
+
+    public static int overpunchDigit(int b) {
+        if (b == ' ' || b == 0x40) return 0;
+        if (b == '{' || b == '}') return 0;
+        if (b >= 'A' && b <= 'I') return b - 'A' + 1;
+        if (b >= 'J' && b <= 'R') return b - 'J' + 1;
+        return b & 0x0F;
+    }
+}
@@ -0,0 +1,72 @@
+package com.cobol.decoder;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Physical storage format of an elementary field, derived from the picture and the
+ * usage description that {@code AstBuilder} attaches to every field.
+ */
+public enum FieldEncoding {
+    TEXT,
+    ZONED,
+    PACKED,
+    BINARY,
+    FLOAT,
+    DOUBLE;
+
+    private static final Pattern REPETITION_PATTERN = Pattern.compile("([X9A])\\((\\d+)\\)");
+
+    public static FieldEncoding of(String dataType, String usage) {
+        if (usage != null) {
+            if (usage.startsWith("Packed")) return PACKED;
+            if (usage.startsWith("Binary") || usage.startsWith("Index") || usage.startsWith("Pointer")) return BINARY;
+            if (usage.startsWith("Single")) return FLOAT;
+            if (usage.startsWith("Double")) return DOUBLE;
+        }
+        return "NUMBER".equals(dataType) ? ZONED : TEXT;
+    }
+
+    /**
+     * Number of bytes the field occupies on disk. Layout lengths are counted in display
+     * positions, so computational fields are narrowed to their natural width here.
+     */
+    public int storageLength(String picture, int displayLength) {
+        int digits = countDigits(picture);
+        int length = switch (this) {
+            case TEXT -> displayLength;
+            case ZONED -> digits;
+            case PACKED -> digits / 2 + 1;
+            case BINARY -> digits == 0 ? 4 : digits <= 4 ? 2 : digits <= 9 ? 4 : 8;
+            case FLOAT -> 4;
+            case DOUBLE -> 8;
+        };
+        return displayLength > 0 ? Math.min(length, displayLength) : length;
+    }
+
+    public boolean isNumeric() {
+        return this != TEXT;
+    }
+
+    public static int countDigits(String picture) {
+        if (picture == null || picture.isEmpty()) return 0;
+        int digits = 0;
+        Matcher matcher = REPETITION_PATTERN.matcher(picture.toUpperCase());
+        StringBuilder rest = new StringBuilder();
+        while (matcher.find()) {
+            if ("9".equals(matcher.group(1))) digits += Integer.parseInt(matcher.group(2));
+            matcher.appendReplacement(rest, "");
+        }
+        matcher.appendTail(rest);
+        for (int i = 0; i < rest.length(); i++) {
+            if (rest.charAt(i) == '9') digits++;
+        }
+        return digits;
+    }
+
+    public static int countScale(String picture) {
+        if (picture == null) return 0;
+        int v = picture.toUpperCase().indexOf('V');
+        return v < 0 ? 0 : countDigits(picture.substring(v + 1));
+    }
+}
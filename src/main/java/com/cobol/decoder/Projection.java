@@ -0,0 +1,71 @@
+package com.cobol.decoder;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * The set of field paths a caller wants decoded. A path names an elementary field
+ * ({@code EMP-SALARY}), a group ({@code EMP-DETAILS}), a whole OCCURS table
+ * ({@code EMP-BENEFITS}), one occurrence ({@code EMP-BENEFITS[3]}), one child of one
+ * occurrence ({@code EMP-BENEFITS[3].BENEFIT-AMOUNT}) or one child across all
+ * occurrences ({@code EMP-BENEFITS.BENEFIT-AMOUNT}). Occurrence indexes are 1-based.
+ */
+public final class Projection {
+
+    private static final Pattern PATH_PATTERN = Pattern.compile("[A-Z0-9-]+(\\[\\d+])?(\\.[A-Z0-9-]+)?");
+    private static final Projection ALL = new Projection(Collections.emptySet());
+
+    private final Set<String> paths;
+
+    private Projection(Set<String> paths) {
+        this.paths = paths;
+    }
+
+    public static Projection all() {
+        return ALL;
+    }
+
+    public static Projection of(String... paths) {
+        return of(Arrays.asList(paths));
+    }
+
+    public static Projection of(Collection<String> paths) {
+        Set<String> normalized = new LinkedHashSet<>();
+        for (String path : paths) {
+            String candidate = path.replaceAll("\\s+", "").toUpperCase();
+            if (!PATH_PATTERN.matcher(candidate).matches()) {
+                throw new IllegalArgumentException("Invalid field path: " + path);
+            }
+            normalized.add(candidate);
+        }
+        return normalized.isEmpty() ? ALL : new Projection(Collections.unmodifiableSet(normalized));
+    }
+
+    public boolean isAll() {
+        return paths.isEmpty();
+    }
+
+    public Set<String> getPaths() {
+        return paths;
+    }
+
+    /**
+     * Tells whether a field known by any of the given selectors is part of the
+     * projection, recording every requested path that matched into {@code matched}.
+     */
+    boolean selects(Collection<String> selectors, Set<String> matched) {
+        if (isAll()) return true;
+        boolean selected = false;
+        for (String selector : selectors) {
+            if (paths.contains(selector)) {
+                matched.add(selector);
+                selected = true;
+            }
+        }
+        return selected;
+    }
+}
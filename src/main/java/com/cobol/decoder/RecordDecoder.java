@@ -0,0 +1,59 @@
+package com.cobol.decoder;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Decodes records according to a {@link DecodePlan}. Only the planned byte ranges are
+ * read; the rest of the record is never touched. A decoder keeps a scratch buffer for
+ * text conversion and must therefore be confined to one thread.
+ */
+public class RecordDecoder {
+
+    private final DecodePlan plan;
+    private final Charset charset;
+    private final byte[] scratch;
+
+    public RecordDecoder(DecodePlan plan) {
+        this(plan, StandardCharsets.ISO_8859_1);
+    }
+
+    public RecordDecoder(DecodePlan plan, Charset charset) {
+        this.plan = plan;
+        this.charset = charset;
+        int widest = 0;
+        for (CompiledField field : plan.getFields()) widest = Math.max(widest, field.getLength());
+        this.scratch = new byte[widest];
+    }
+
+    public DecodePlan getPlan() {
+        return plan;
+    }
+
+    public Map<String, Object> decode(byte[] record) {
+        return decode(ByteBuffer.wrap(record), 0, record.length);
+    }
+
+    /**
+     * Decodes one record that starts at {@code recordStart} in the buffer and is
+     * {@code recordLength} bytes long. Fields lying past the end of a short record
+     * are reported as {@code null}.
+     */
+    public Map<String, Object> decode(ByteBuffer buffer, int recordStart, int recordLength) {
+        List<CompiledField> fields = plan.getFields();
+        Map<String, Object> values = new LinkedHashMap<>(fields.size() * 4 / 3 + 1);
+        for (CompiledField field : fields) {
+            values.put(field.getPath(), decodeField(field, buffer, recordStart, recordLength));
+        }
+        return values;
+    }
+
+    public Object decodeField(CompiledField field, ByteBuffer buffer, int recordStart, int recordLength) {
+        if (field.getOffset() + field.getLength() > recordLength) return null;
+        return FieldDecoder.decode(field, buffer, recordStart + field.getOffset(), charset, scratch);
+    }
+}
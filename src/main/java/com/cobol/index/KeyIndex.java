@@ -0,0 +1,151 @@
+package com.cobol.index;
+
+import com.cobol.parser.model.RecordLayout;
+import com.cobol.sort.KeyNormalizer;
+import com.cobol.sort.SortKey;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongConsumer;
+
+/**
+ * A memory-mapped, sorted key index written by {@link KeyIndexBuilder}.
+ * <p>
+ * The file holds fixed-width entries of (normalized key, 8-byte record offset) in key
+ * order, followed by a 32-byte footer: key width, record length, entry count, a
+ * reserved word, a format version and the magic number {@code CBIX}. Lookups binary
+ * search the mapped entries, so a point query touches only a handful of pages. A
+ * {@code KeyIndex} is safe for concurrent readers.
+ */
+public class KeyIndex implements Closeable {
+
+    static final int FOOTER_BYTES = 32;
+    private static final int MAGIC = 0x43424958;
+    private static final int VERSION = 1;
+
+    private final FileChannel channel;
+    private final KeyNormalizer normalizer;
+    private final Charset charset;
+    private final int keyWidth;
+    private final int entryWidth;
+    private final int recordLength;
+    private final long entries;
+    private final long entriesPerSegment;
+    private final MappedByteBuffer[] segments;
+
+    public KeyIndex(Path indexFile, RecordLayout layout, String keyField, Charset charset) throws IOException {
+        this.normalizer = new KeyNormalizer(layout, List.of(SortKey.ascending(keyField)));
+        this.charset = charset;
+        FileChannel channel = FileChannel.open(indexFile, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            if (size < FOOTER_BYTES) throw new IOException(indexFile + " is not a key index (" + size + " bytes)");
+            ByteBuffer footer = ByteBuffer.allocate(FOOTER_BYTES);
+            while (footer.hasRemaining() && channel.read(footer, size - FOOTER_BYTES + footer.position()) >= 0) {
+                // read the footer
+            }
+            if (footer.hasRemaining() || footer.getInt(28) != MAGIC || footer.getInt(24) != VERSION) {
+                throw new IOException(indexFile + " is not a key index");
+            }
+            this.keyWidth = footer.getInt(0);
+            this.recordLength = footer.getInt(4);
+            this.entries = footer.getLong(8);
+            this.entryWidth = keyWidth + Long.BYTES;
+            if (keyWidth != normalizer.getWidth() || entries * entryWidth != size - FOOTER_BYTES) {
+                throw new IOException(indexFile + " was not built for key field " + keyField + " of " + layout.getName());
+            }
+            this.entriesPerSegment = Integer.MAX_VALUE / entryWidth;
+            int count = (int) ((entries + entriesPerSegment - 1) / entriesPerSegment);
+            this.segments = new MappedByteBuffer[count];
+            for (int i = 0; i < count; i++) {
+                long first = i * entriesPerSegment;
+                long length = Math.min(entriesPerSegment, entries - first) * entryWidth;
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, first * entryWidth, length);
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        this.channel = channel;
+    }
+
+    static ByteBuffer footer(int keyWidth, int recordLength, long entries) {
+        ByteBuffer footer = ByteBuffer.allocate(FOOTER_BYTES);
+        footer.putInt(keyWidth).putInt(recordLength).putLong(entries).putLong(0).putInt(VERSION).putInt(MAGIC);
+        return footer.flip();
+    }
+
+    public long size() {
+        return entries;
+    }
+
+    public int getRecordLength() {
+        return recordLength;
+    }
+
+    /** Offsets of every record whose key equals {@code key}, in file order. */
+    public List<Long> find(Object key) {
+        List<Long> offsets = new ArrayList<>();
+        scan(key, key, offsets::add);
+        return offsets;
+    }
+
+    /**
+     * Passes the offsets of all records with {@code from <= key <= to} to the consumer in
+     * key order. Either bound may be {@code null} for an open range.
+     */
+    public void scan(Object from, Object to, LongConsumer offsets) {
+        byte[] upper = to == null ? null : probe(to);
+        long index = from == null ? 0 : lowerBound(probe(from));
+        for (; index < entries; index++) {
+            if (upper != null && compare(index, upper) > 0) break;
+            offsets.accept(offset(index));
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private byte[] probe(Object value) {
+        byte[] key = new byte[keyWidth];
+        normalizer.normalizeValues(List.of(value), charset, key, 0);
+        return key;
+    }
+
+    /** First entry whose key is not less than {@code key}. */
+    private long lowerBound(byte[] key) {
+        long low = 0;
+        long high = entries;
+        while (low < high) {
+            long mid = (low + high) >>> 1;
+            if (compare(mid, key) < 0) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+
+    private int compare(long index, byte[] key) {
+        MappedByteBuffer segment = segments[(int) (index / entriesPerSegment)];
+        int position = (int) (index % entriesPerSegment) * entryWidth;
+        for (int i = 0; i < keyWidth; i++) {
+            int diff = (segment.get(position + i) & 0xFF) - (key[i] & 0xFF);
+            if (diff != 0) return diff;
+        }
+        return 0;
+    }
+
+    private long offset(long index) {
+        MappedByteBuffer segment = segments[(int) (index / entriesPerSegment)];
+        return segment.getLong((int) (index % entriesPerSegment) * entryWidth + keyWidth);
+    }
+}
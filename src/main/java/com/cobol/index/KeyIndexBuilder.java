@@ -0,0 +1,130 @@
+package com.cobol.index;
+
+import com.cobol.decoder.DecodePlan;
+import com.cobol.parser.model.CobolField;
+import com.cobol.parser.model.RecordLayout;
+import com.cobol.rules.RecordClassifier;
+import com.cobol.sort.KeyNormalizer;
+import com.cobol.sort.RecordSorter;
+import com.cobol.sort.SortKey;
+import com.cobol.sort.SortOptions;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Builds a {@link KeyIndex} over one key field of a fixed-length data file.
+ * <p>
+ * The data file is scanned once and an entry of (normalized key, record offset) is
+ * written for every record. The entries are themselves fixed-length records, so they
+ * are put in key order by {@link RecordSorter}, which keeps the build within bounded
+ * memory for any file size. Entries with equal keys stay in file order.
+ */
+public class KeyIndexBuilder {
+
+    private static final long SCAN_WINDOW_BYTES = 1L << 30;
+
+    private final RecordLayout layout;
+    private final KeyNormalizer normalizer;
+    private final RecordClassifier classifier;
+    private final int recordLength;
+    private final int layoutIndex;
+
+    public KeyIndexBuilder(RecordLayout layout, String keyField) {
+        this(layout, keyField, null, DecodePlan.recordLength(layout));
+    }
+
+    /**
+     * @param classifier    optional; when set only records classified as {@code layout} are indexed
+     * @param recordLength  length of every record in the data file
+     */
+    public KeyIndexBuilder(RecordLayout layout, String keyField, RecordClassifier classifier, int recordLength) {
+        this.layout = layout;
+        this.normalizer = new KeyNormalizer(layout, List.of(SortKey.ascending(keyField)));
+        this.classifier = classifier == null ? null : classifier.copy();
+        this.recordLength = recordLength;
+        if (normalizer.getRequiredLength() > recordLength) {
+            throw new IllegalArgumentException("Key field " + keyField + " extends past the record length of " + recordLength);
+        }
+        this.layoutIndex = classifier == null ? -1 : classifier.getLayouts().indexOf(layout);
+        if (classifier != null && layoutIndex < 0) {
+            throw new IllegalArgumentException("Layout " + layout.getName() + " is not one of the classifier's layouts");
+        }
+    }
+
+    /** Builds the index and returns the number of entries written. */
+    public long build(Path dataFile, Path indexFile) throws IOException {
+        int keyWidth = normalizer.getWidth();
+        int entryWidth = keyWidth + Long.BYTES;
+        Path unsorted = Files.createTempFile(indexFile.toAbsolutePath().getParent(), "index-", ".tmp");
+        try {
+            long entries = writeEntries(dataFile, unsorted, keyWidth, entryWidth);
+            SortOptions options = new SortOptions();
+            options.setRecordLength(entryWidth);
+            options.setTempDirectory(unsorted.getParent());
+            new RecordSorter(entryLayout(keyWidth, entryWidth), List.of(SortKey.ascending("INDEX-KEY")), options)
+                    .sort(unsorted, indexFile);
+            try (FileChannel out = FileChannel.open(indexFile, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                ByteBuffer footer = KeyIndex.footer(keyWidth, recordLength, entries);
+                while (footer.hasRemaining()) out.write(footer);
+            }
+            return entries;
+        } finally {
+            Files.deleteIfExists(unsorted);
+        }
+    }
+
+    private long writeEntries(Path dataFile, Path target, int keyWidth, int entryWidth) throws IOException {
+        byte[] entry = new byte[entryWidth];
+        ByteBuffer entryView = ByteBuffer.wrap(entry);
+        ByteBuffer block = ByteBuffer.allocateDirect(Math.max(entryWidth, (1 << 20) / entryWidth * entryWidth));
+        long entries = 0;
+        try (FileChannel in = FileChannel.open(dataFile, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(target, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            long records = in.size() / recordLength;
+            long window = Math.max(recordLength, SCAN_WINDOW_BYTES / recordLength * recordLength);
+            for (long start = 0; start < records * recordLength; start += window) {
+                int size = (int) Math.min(window, records * recordLength - start);
+                MappedByteBuffer data = in.map(FileChannel.MapMode.READ_ONLY, start, size);
+                for (int offset = 0; offset < size; offset += recordLength) {
+                    if (classifier != null && classifier.classify(data, offset, recordLength) != layoutIndex) continue;
+                    normalizer.normalize(data, offset, entry, 0);
+                    entryView.putLong(keyWidth, start + offset);
+                    if (block.remaining() < entryWidth) flush(block, out);
+                    block.put(entry);
+                    entries++;
+                }
+            }
+            flush(block, out);
+        }
+        return entries;
+    }
+
+    private static void flush(ByteBuffer block, FileChannel out) throws IOException {
+        block.flip();
+        while (block.hasRemaining()) out.write(block);
+        block.clear();
+    }
+
+    /** Describes an index entry as a record so the generic sorter can order entries. */
+    private static RecordLayout entryLayout(int keyWidth, int entryWidth) {
+        CobolField key = new CobolField(5, "INDEX-KEY");
+        key.setPicture("X(" + keyWidth + ")");
+        key.setDataType("STRING");
+        key.setStartPosition(1);
+        key.setLength(keyWidth);
+        key.setEndPosition(keyWidth);
+        RecordLayout layout = new RecordLayout("INDEX-ENTRY");
+        layout.setStartPosition(1);
+        layout.setLength(entryWidth);
+        layout.setEndPosition(entryWidth);
+        layout.getFields().add(key);
+        return layout;
+    }
+}
@@ -0,0 +1,19 @@
+package com.cobol.io;
+
+import java.io.IOException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class DataFiles {
+
+    /**
+     * Opens a data file for sequential reading, transparently decompressing gzip input
+     * (detected by its magic number) on up to {@code decompressionThreads} threads; see
+     * {@link GzipChannel#open(Path, int)}.
+     */
+    public static ReadableByteChannel open(Path path, int decompressionThreads) throws IOException {
+        if (GzipChannel.isGzip(path)) return GzipChannel.open(path, decompressionThreads);
+        return Files.newByteChannel(path);
+    }
+}
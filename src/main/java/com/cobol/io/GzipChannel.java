@@ -0,0 +1,460 @@
+package com.cobol.io;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+
+/**
+ * A {@link ReadableByteChannel} over a gzip file whose decompression runs off the
+ * reading thread.
+ * <p>
+ * Decompressor threads inflate into a fixed ring of reusable direct buffers; the
+ * consumer drains filled buffers in order and hands them back. Multi-member files (as
+ * written by concatenating gzip streams, bgzip or parallel compressors) are inflated one
+ * member per task with up to {@code threads} members in flight. The next member always
+ * starts where the previous one's trailer ends, so it is started directly; the other
+ * members in flight are speculative candidates found by scanning for gzip headers a
+ * bounded distance ahead, so the reader never scans far past the data it needs. A
+ * candidate that turns out to lie inside another member is discarded once the member
+ * before it ends, so only boundaries confirmed by the preceding member's trailer are
+ * ever used. Every member's CRC-32 and size are
+ * verified. Like {@link java.util.zip.GZIPInputStream}, trailing bytes that do not start
+ * a new member are ignored.
+ * <p>
+ * At most {@value #MAX_THREADS} members are inflated at once, and the buffer ring is
+ * held to about 16 MB of direct memory however many threads run.
+ * Parallel inflation only pays off with several cores and several members, so
+ * {@link #open(Path, int)} uses a plain {@link GZIPInputStream} otherwise.
+ */
+public class GzipChannel implements ReadableByteChannel {
+
+    static final int MAX_THREADS = 8;
+    private static final int RING_BYTES = 16 << 20;
+    private static final int MAX_BUFFER_BYTES = 1 << 20;
+    private static final int MIN_BUFFER_BYTES = 64 * 1024;
+    private static final int INPUT_BYTES = 256 * 1024;
+    private static final int BUFFERS_PER_MEMBER = 4;
+    /** How far past the next member each speculative slot may look for candidates. */
+    private static final long LOOKAHEAD_BYTES = 4L << 20;
+    private static final ByteBuffer END = ByteBuffer.allocate(0);
+
+    private final FileChannel file;
+    private final long size;
+    private final int threads;
+    private final ExecutorService executor;
+    private final BlockingQueue<ByteBuffer> ring;
+    private final HeaderScanner scanner;
+    private final Deque<MemberTask> pending = new ArrayDeque<>();
+    private MemberTask current;
+    private ByteBuffer currentBuffer;
+    private long expected;
+    private boolean open = true;
+
+    public GzipChannel(Path path, int threads) throws IOException {
+        this.file = FileChannel.open(path, StandardOpenOption.READ);
+        this.size = file.size();
+        this.threads = Math.max(1, Math.min(MAX_THREADS, threads));
+        // Every running member can hold its queued buffers plus the one it is filling; one more for the consumer.
+        int buffers = this.threads * (BUFFERS_PER_MEMBER + 2) + 1;
+        int bufferBytes = Math.max(MIN_BUFFER_BYTES, Math.min(MAX_BUFFER_BYTES, Integer.highestOneBit(RING_BYTES / buffers)));
+        this.ring = new ArrayBlockingQueue<>(buffers);
+        while (ring.remainingCapacity() > 0) ring.add(ByteBuffer.allocateDirect(bufferBytes));
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(this.threads, runnable -> {
+            Thread thread = new Thread(runnable, "gzip-inflater-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.scanner = new HeaderScanner(file, size);
+    }
+
+    /**
+     * Opens a gzip file, inflating members in parallel on up to {@code threads} threads
+     * when there are spare cores and the file is multi-member, and with a sequential
+     * {@link GZIPInputStream} otherwise. A file counts as multi-member when a second
+     * member header appears within its first 4 MB, so files made of very large members
+     * are read sequentially as well.
+     */
+    public static ReadableByteChannel open(Path path, int threads) throws IOException {
+        int usable = Math.min(Math.min(threads, MAX_THREADS), Runtime.getRuntime().availableProcessors());
+        if (usable > 1 && hasSecondMember(path)) return new GzipChannel(path, usable);
+        return new SequentialChannel(new GZIPInputStream(Files.newInputStream(path), INPUT_BYTES));
+    }
+
+    private static boolean hasSecondMember(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new HeaderScanner(channel, channel.size()).next(1, LOOKAHEAD_BYTES) >= 0;
+        }
+    }
+
+    /** Tells whether the file starts with the gzip magic number. */
+    public static boolean isGzip(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer magic = ByteBuffer.allocate(2);
+            while (magic.hasRemaining() && channel.read(magic) >= 0) {
+                // read the two magic bytes
+            }
+            return magic.position() == 2 && (magic.get(0) & 0xFF) == 0x1F && (magic.get(1) & 0xFF) == 0x8B;
+        }
+    }
+
+    @Override
+    public int read(ByteBuffer dst) throws IOException {
+        if (!open) throw new ClosedChannelException();
+        try {
+            while (true) {
+                if (currentBuffer != null && currentBuffer.hasRemaining()) {
+                    int n = Math.min(dst.remaining(), currentBuffer.remaining());
+                    dst.put(dst.position(), currentBuffer, currentBuffer.position(), n);
+                    dst.position(dst.position() + n);
+                    currentBuffer.position(currentBuffer.position() + n);
+                    return n;
+                }
+                if (currentBuffer != null) {
+                    currentBuffer.clear();
+                    ring.put(currentBuffer);
+                    currentBuffer = null;
+                }
+                if (current == null) {
+                    current = nextMember();
+                    if (current == null) return -1;
+                }
+                ByteBuffer next = current.output.take();
+                if (next == END) {
+                    expected = current.awaitEnd();
+                    current = null;
+                } else {
+                    currentBuffer = next;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while decompressing", e);
+        }
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!open) return;
+        open = false;
+        if (current != null) current.cancel();
+        pending.forEach(MemberTask::cancel);
+        executor.shutdownNow();
+        file.close();
+    }
+
+    /**
+     * Returns the task for the member that starts at the expected offset, discarding
+     * candidates that were swallowed by the previous member, and tops up the speculative
+     * window with the following candidates.
+     */
+    private MemberTask nextMember() throws IOException {
+        while (!pending.isEmpty() && pending.peekFirst().start < expected) pending.pollFirst().cancel();
+        MemberTask head = pending.peekFirst();
+        if (head != null && head.start == expected) {
+            pending.pollFirst();
+        } else if (scanner.isHeader(expected)) {
+            head = new MemberTask(expected);
+            executor.execute(head);
+        } else {
+            if (expected == 0) throw new IOException("Not in GZIP format");
+            return null;
+        }
+        schedule(threads - 1, head.start);
+        return head;
+    }
+
+    /** Starts speculative members after {@code after}, keeping at most {@code window} in flight. */
+    private void schedule(int window, long after) throws IOException {
+        long limit = after + window * LOOKAHEAD_BYTES;
+        while (pending.size() < window) {
+            long candidate = scanner.next(after + 1, limit);
+            if (candidate < 0) return;
+            MemberTask task = new MemberTask(candidate);
+            pending.addLast(task);
+            executor.execute(task);
+        }
+    }
+
+    /**
+     * Adapts a stream to a channel, reading straight into heap buffers; unlike
+     * {@link java.nio.channels.Channels#newChannel(InputStream)} it does not copy through
+     * a small intermediate array.
+     */
+    private static final class SequentialChannel implements ReadableByteChannel {
+        private final InputStream in;
+        private byte[] scratch;
+        private boolean open = true;
+
+        SequentialChannel(InputStream in) {
+            this.in = in;
+        }
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            if (!open) throw new ClosedChannelException();
+            if (!dst.hasRemaining()) return 0;
+            if (dst.hasArray()) {
+                int n = in.read(dst.array(), dst.arrayOffset() + dst.position(), dst.remaining());
+                if (n > 0) dst.position(dst.position() + n);
+                return n;
+            }
+            if (scratch == null) scratch = new byte[INPUT_BYTES];
+            int n = in.read(scratch, 0, Math.min(scratch.length, dst.remaining()));
+            if (n > 0) dst.put(scratch, 0, n);
+            return n;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return open;
+        }
+
+        @Override
+        public void close() throws IOException {
+            open = false;
+            in.close();
+        }
+    }
+
+    /** Inflates exactly one gzip member starting at a candidate offset. */
+    private final class MemberTask implements Runnable {
+        final long start;
+        final BlockingQueue<ByteBuffer> output = new ArrayBlockingQueue<>(BUFFERS_PER_MEMBER + 1);
+        private volatile boolean cancelled;
+        private volatile long end = -1;
+        private volatile Exception failure;
+        private final Object done = new Object();
+        private boolean finished;
+
+        MemberTask(long start) {
+            this.start = start;
+        }
+
+        @Override
+        public void run() {
+            ByteBuffer held = null;
+            Inflater inflater = new Inflater(true);
+            try {
+                InputCursor in = new InputCursor(start);
+                in.skipHeader();
+                inflater.setInput(in.buffer);
+                CRC32 crc = new CRC32();
+                long produced = 0;
+                while (!inflater.finished() && !cancelled) {
+                    held = ring.take();
+                    while (held.hasRemaining() && !inflater.finished()) {
+                        if (inflater.inflate(held) == 0) {
+                            if (inflater.needsInput()) {
+                                in.refill();
+                                inflater.setInput(in.buffer);
+                            } else if (inflater.needsDictionary()) {
+                                throw new DataFormatException("Preset dictionaries are not supported");
+                            }
+                        }
+                    }
+                    held.flip();
+                    crc.update(held.duplicate());
+                    produced += held.remaining();
+                    if (held.hasRemaining()) output.put(held);
+                    else ring.put(held.clear());
+                    held = null;
+                }
+                if (!cancelled) {
+                    long expectedCrc = in.readIntLE() & 0xFFFFFFFFL;
+                    long expectedSize = in.readIntLE() & 0xFFFFFFFFL;
+                    if (expectedCrc != crc.getValue() || expectedSize != (produced & 0xFFFFFFFFL)) {
+                        throw new IOException("Corrupt gzip member at offset " + start + " (CRC or size mismatch)");
+                    }
+                    end = in.position();
+                }
+            } catch (InterruptedException e) {
+                cancelled = true;
+            } catch (Exception e) {
+                failure = e;
+            } finally {
+                inflater.end();
+                if (held != null) ring.offer(held.clear());
+                if (cancelled) reclaim();
+                publishEnd();
+                synchronized (done) {
+                    finished = true;
+                    done.notifyAll();
+                }
+            }
+        }
+
+        private void publishEnd() {
+            while (true) {
+                try {
+                    output.put(END);
+                    return;
+                } catch (InterruptedException e) {
+                    cancelled = true;
+                    reclaim();
+                }
+            }
+        }
+
+        long awaitEnd() throws IOException, InterruptedException {
+            synchronized (done) {
+                while (!finished) done.wait();
+            }
+            if (failure instanceof IOException io) throw io;
+            if (failure != null) throw new IOException("Corrupt gzip member at offset " + start, failure);
+            return end;
+        }
+
+        void cancel() {
+            cancelled = true;
+            reclaim();
+        }
+
+        private void reclaim() {
+            ByteBuffer buffer;
+            while ((buffer = output.poll()) != null) {
+                if (buffer != END) ring.offer(buffer.clear());
+            }
+        }
+    }
+
+    /** Sequential positional reader over the compressed file for one member. */
+    private final class InputCursor {
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(INPUT_BYTES).limit(0);
+        private long bufferStart;
+
+        InputCursor(long position) {
+            this.bufferStart = position;
+        }
+
+        long position() {
+            return bufferStart + buffer.position();
+        }
+
+        void refill() throws IOException {
+            bufferStart = position();
+            buffer.clear();
+            while (buffer.hasRemaining() && file.read(buffer, bufferStart + buffer.position()) >= 0) {
+                // fill as much input as is available
+            }
+            buffer.flip();
+            if (!buffer.hasRemaining()) throw new EOFException("Unexpected end of gzip member");
+        }
+
+        int readByte() throws IOException {
+            if (!buffer.hasRemaining()) refill();
+            return buffer.get() & 0xFF;
+        }
+
+        int readIntLE() throws IOException {
+            return readByte() | readByte() << 8 | readByte() << 16 | readByte() << 24;
+        }
+
+        void skipHeader() throws IOException {
+            if (readByte() != 0x1F || readByte() != 0x8B || readByte() != 8) throw new IOException("Not a gzip member at offset " + bufferStart);
+            int flags = readByte();
+            for (int i = 0; i < 6; i++) readByte();
+            if ((flags & 4) != 0) {
+                int extra = readByte() | readByte() << 8;
+                for (int i = 0; i < extra; i++) readByte();
+            }
+            if ((flags & 8) != 0) while (readByte() != 0) { /* file name */ }
+            if ((flags & 16) != 0) while (readByte() != 0) { /* comment */ }
+            if ((flags & 2) != 0) {
+                readByte();
+                readByte();
+            }
+        }
+    }
+
+    /**
+     * Finds offsets that look like gzip member headers: magic, deflate method, no
+     * reserved flag bits and a legal XFL value.
+     */
+    private static final class HeaderScanner {
+        private static final int HEADER_CHECK = 10;
+        private final FileChannel file;
+        private final long size;
+        private final ByteBuffer window = ByteBuffer.allocate(1 << 20).limit(0);
+        private long windowStart;
+        private long cursor;
+
+        HeaderScanner(FileChannel file, long size) {
+            this.file = file;
+            this.size = size;
+        }
+
+        /**
+         * Next candidate at or after both the previous candidate and {@code from} and before
+         * {@code limit}, or -1. Scanning resumes where it stopped on the next call.
+         */
+        long next(long from, long limit) throws IOException {
+            cursor = Math.max(cursor, from);
+            while (cursor + HEADER_CHECK <= size && cursor < limit) {
+                if (cursor < windowStart || cursor + HEADER_CHECK > windowStart + window.limit()) load(cursor);
+                int i = (int) (cursor - windowStart);
+                int last = (int) Math.min(window.limit() - HEADER_CHECK, limit - 1 - windowStart);
+                for (; i <= last; i++) {
+                    if (looksLikeHeader(window, i)) {
+                        long found = windowStart + i;
+                        cursor = found + 1;
+                        return found;
+                    }
+                }
+                cursor = windowStart + last + 1;
+            }
+            return -1;
+        }
+
+        /** Checks the header at an exact offset without moving the scan. */
+        boolean isHeader(long position) throws IOException {
+            if (position + HEADER_CHECK > size) return false;
+            ByteBuffer header = ByteBuffer.allocate(HEADER_CHECK);
+            while (header.hasRemaining()) {
+                if (file.read(header, position + header.position()) < 0) return false;
+            }
+            return looksLikeHeader(header, 0);
+        }
+
+        private static boolean looksLikeHeader(ByteBuffer buffer, int i) {
+            return (buffer.get(i) & 0xFF) == 0x1F && (buffer.get(i + 1) & 0xFF) == 0x8B && buffer.get(i + 2) == 8
+                    && (buffer.get(i + 3) & 0xE0) == 0 && isValidXfl(buffer.get(i + 8));
+        }
+
+        private static boolean isValidXfl(byte xfl) {
+            return xfl == 0 || xfl == 2 || xfl == 4;
+        }
+
+        private void load(long position) throws IOException {
+            window.clear();
+            windowStart = position;
+            while (window.hasRemaining() && file.read(window, windowStart + window.position()) >= 0) {
+                // fill the scan window
+            }
+            window.flip();
+        }
+    }
+}
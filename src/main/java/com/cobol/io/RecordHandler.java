@@ -0,0 +1,17 @@
+package com.cobol.io;
+
+import com.cobol.parser.model.RecordLayout;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Receives records from a reader without copying them. The buffer is shared and only
+ * valid for the duration of the call; the record occupies {@code length} bytes starting
+ * at the absolute index {@code start}. {@code layout} is {@code null} when the record
+ * could not be classified.
+ */
+@FunctionalInterface
+public interface RecordHandler {
+    void onRecord(RecordLayout layout, ByteBuffer data, int start, int length) throws IOException;
+}
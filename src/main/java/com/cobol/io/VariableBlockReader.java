@@ -0,0 +1,218 @@
+package com.cobol.io;
+
+import com.cobol.parser.model.RecordLayout;
+import com.cobol.rules.RecordClassifier;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+/**
+ * Reads mainframe variable-length datasets (RECFM=V / VB) that were transferred in
+ * binary mode with their descriptor words intact.
+ * <p>
+ * Every record starts with a 4-byte Record Descriptor Word (2-byte big-endian length
+ * including the RDW, then 2 reserved bytes). In blocked files every block additionally
+ * starts with a Block Descriptor Word in the same format, or in the extended format with
+ * the high bit set and a 31-bit length. Spanned records (RECFM=VBS) are rejected.
+ * <p>
+ * The file is memory-mapped and records are handed to a {@link RecordHandler} in place.
+ * A sequential read follows the descriptor chain as it goes. A parallel read first hops
+ * from header to header to find split points (block boundaries for VB, record boundaries
+ * for V) so that the resulting partitions can be processed concurrently.
+ */
+public class VariableBlockReader {
+
+    private static final long MAX_PARTITION_BYTES = 1L << 30;
+    private static final int DESCRIPTOR_LENGTH = 4;
+    private static final int SCAN_WINDOW_BYTES = 64 * 1024;
+
+    private final Path file;
+    private final boolean blocked;
+    private final RecordClassifier classifier;
+
+    public VariableBlockReader(Path file, boolean blocked, RecordClassifier classifier) {
+        this.file = file;
+        this.blocked = blocked;
+        this.classifier = classifier;
+    }
+
+    /** Reads every record in file order and returns the number of records read. */
+    public long read(RecordHandler handler) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long records = 0;
+            MappedByteBuffer data = null;
+            long dataStart = 0;
+            long dataEnd = 0;
+            for (long position = 0; position < size; ) {
+                if (position + DESCRIPTOR_LENGTH > size) {
+                    throw new IOException("Truncated descriptor word at offset " + position + " in " + file);
+                }
+                if (position + DESCRIPTOR_LENGTH > dataEnd) {
+                    dataStart = position;
+                    dataEnd = Math.min(size, position + MAX_PARTITION_BYTES);
+                    data = channel.map(FileChannel.MapMode.READ_ONLY, dataStart, dataEnd - dataStart);
+                }
+                int descriptor = data.getInt((int) (position - dataStart));
+                long length = blocked ? blockLength(descriptor, position) : recordLength(descriptor, position);
+                if (position + length > size) {
+                    throw new IOException("Last " + (blocked ? "block" : "record") + " of " + file + " is truncated");
+                }
+                if (position + length > dataEnd) {
+                    // The block straddles the mapped window; remap starting at the block.
+                    dataStart = position;
+                    dataEnd = Math.min(size, position + Math.max(length, MAX_PARTITION_BYTES));
+                    data = channel.map(FileChannel.MapMode.READ_ONLY, dataStart, dataEnd - dataStart);
+                }
+                int from = (int) (position - dataStart);
+                records += readRange(data, from, from + (int) length, dataStart, classifier, handler);
+                position += length;
+            }
+            return records;
+        }
+    }
+
+    /**
+     * Reads the file with {@code threads} workers. Each worker obtains its own handler
+     * from {@code handlers} and processes whole partitions, so records reach a given
+     * handler in file order within a partition but partitions are interleaved.
+     */
+    public long readParallel(int threads, Supplier<? extends RecordHandler> handlers) throws IOException {
+        if (threads < 1) throw new IllegalArgumentException("threads must be at least 1, was " + threads);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long target = Math.min(MAX_PARTITION_BYTES, Math.max(DESCRIPTOR_LENGTH, channel.size() / (threads * 4L)));
+            ConcurrentLinkedQueue<long[]> partitions = new ConcurrentLinkedQueue<>(split(channel, target));
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            try {
+                List<Future<Long>> workers = new ArrayList<>();
+                for (int i = 0; i < threads; i++) {
+                    workers.add(executor.submit(() -> {
+                        RecordClassifier local = classifier.copy();
+                        RecordHandler handler = handlers.get();
+                        long records = 0;
+                        long[] partition;
+                        while ((partition = partitions.poll()) != null) {
+                            records += readPartition(channel, partition[0], partition[1], local, handler);
+                        }
+                        return records;
+                    }));
+                }
+                long records = 0;
+                for (Future<Long> worker : workers) records += worker.get();
+                return records;
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException io) throw io;
+                if (e.getCause() instanceof RuntimeException re) throw re;
+                throw new IOException("Failed to read " + file, e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while reading " + file, e);
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * Walks the descriptor chain and cuts the file into contiguous byte ranges of about
+     * {@code targetBytes}, each starting on a block (or record) boundary.
+     */
+    List<long[]> split(FileChannel channel, long targetBytes) throws IOException {
+        List<long[]> partitions = new ArrayList<>();
+        long size = channel.size();
+        ByteBuffer window = ByteBuffer.allocate(SCAN_WINDOW_BYTES).limit(0);
+        long windowStart = 0;
+        long partitionStart = 0;
+        long position = 0;
+        while (position < size) {
+            if (position - partitionStart >= targetBytes) {
+                partitions.add(new long[]{partitionStart, position});
+                partitionStart = position;
+            }
+            if (position + DESCRIPTOR_LENGTH > windowStart + window.limit()) {
+                window.clear();
+                windowStart = position;
+                while (window.hasRemaining() && channel.read(window, windowStart + window.position()) >= 0) {
+                    // fill the scan window
+                }
+                window.flip();
+                if (window.limit() < DESCRIPTOR_LENGTH) {
+                    throw new IOException("Truncated descriptor word at offset " + position + " in " + file);
+                }
+            }
+            int descriptor = window.getInt((int) (position - windowStart));
+            position += blocked ? blockLength(descriptor, position) : recordLength(descriptor, position);
+        }
+        if (position > size) throw new IOException("Last " + (blocked ? "block" : "record") + " of " + file + " is truncated");
+        if (position > partitionStart) partitions.add(new long[]{partitionStart, position});
+        return partitions;
+    }
+
+    private long readPartition(FileChannel channel, long start, long end, RecordClassifier classifier,
+                               RecordHandler handler) throws IOException {
+        MappedByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        return readRange(data, 0, (int) (end - start), start, classifier, handler);
+    }
+
+    /** Reads the whole blocks (or records) in {@code [position, limit)} of a buffer mapped at {@code base}. */
+    private long readRange(ByteBuffer data, int position, int limit, long base, RecordClassifier classifier,
+                           RecordHandler handler) throws IOException {
+        long records = 0;
+        while (position < limit) {
+            if (blocked) {
+                int blockEnd = position + blockLength(data.getInt(position), base + position);
+                position += DESCRIPTOR_LENGTH;
+                while (position < blockEnd) {
+                    position = emitRecord(data, position, blockEnd, base, classifier, handler);
+                    records++;
+                }
+            } else {
+                position = emitRecord(data, position, limit, base, classifier, handler);
+                records++;
+            }
+        }
+        return records;
+    }
+
+    private int emitRecord(ByteBuffer data, int position, int limit, long base, RecordClassifier classifier,
+                           RecordHandler handler) throws IOException {
+        if (limit - position < DESCRIPTOR_LENGTH) {
+            throw new IOException("Block ends inside an RDW at offset " + (base + position) + " in " + file);
+        }
+        int length = recordLength(data.getInt(position), base + position);
+        if (position + length > limit) {
+            throw new IOException("Record at offset " + (base + position) + " overruns its block in " + file);
+        }
+        int recordStart = position + DESCRIPTOR_LENGTH;
+        int recordLength = length - DESCRIPTOR_LENGTH;
+        int type = classifier.classify(data, recordStart, recordLength);
+        RecordLayout layout = type == RecordClassifier.UNCLASSIFIED ? null : classifier.getLayouts().get(type);
+        handler.onRecord(layout, data, recordStart, recordLength);
+        return position + length;
+    }
+
+    private int blockLength(int bdw, long offset) throws IOException {
+        int length = bdw < 0 ? bdw & 0x7FFFFFFF : bdw >>> 16;
+        if (length < DESCRIPTOR_LENGTH) throw new IOException("Invalid BDW length " + length + " at offset " + offset + " in " + file);
+        return length;
+    }
+
+    private int recordLength(int rdw, long offset) throws IOException {
+        int length = rdw >>> 16;
+        if ((rdw & 0xFF00) != 0) throw new IOException("Spanned record segment at offset " + offset + " in " + file + " (RECFM=VBS is not supported)");
+        if (length < DESCRIPTOR_LENGTH) throw new IOException("Invalid RDW length " + length + " at offset " + offset + " in " + file);
+        return length;
+    }
+}
@@ -5,17 +5,25 @@ import com.cobol.parser.processor.LayoutProcessor;
 import com.cobol.parser.processor.OccursProcessor;
 import com.cobol.parser.processor.PositionProcessor;
 import com.cobol.parser.token.CobolToken;
+import com.cobol.parser.token.CopybookLibrary;
 import com.cobol.parser.token.Tokenizer;
 import com.cobol.parser.util.FileUtils;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 public class CopybookParserFacade {
 
+    /** Display length reported for copybooks that declare no record length. */
+    private static final int DEFAULT_RECORD_LENGTH = 300;
+
     private final Tokenizer tokenizer;
     private final AstBuilder astBuilder;
     private final PositionProcessor positionProcessor;
@@ -23,7 +31,17 @@ public class CopybookParserFacade {
     private final OccursProcessor occursProcessor;
 
     public CopybookParserFacade() {
-        this.tokenizer = new Tokenizer();
+        this(null);
+    }
+
+    /**
+     * Creates a facade that expands COPY statements from the given library. Pass the same
+     * library to every facade of a batch so shared members are tokenized only once.
+     *
+     * @param library The include library, or null to skip COPY statements.
+     */
+    public CopybookParserFacade(CopybookLibrary library) {
+        this.tokenizer = new Tokenizer(library);
         this.astBuilder = new AstBuilder();
         this.positionProcessor = new PositionProcessor();
         this.layoutProcessor = new LayoutProcessor();
@@ -39,15 +57,34 @@ public class CopybookParserFacade {
      * @throws IOException If the file cannot be read.
      */
     public ParseResult parse(Path copybookPath) throws IOException {
+        return parse(copybookPath, new HashMap<>());
+    }
+
+    /**
+     * Parses a copybook and records every COPY member it pulled in, nested ones included,
+     * with the modification time that was read.
+     *
+     * @param copybookPath The direct path to the .cbl file.
+     * @param includes     Receives the included member files.
+     * @return A ParseResult object containing the structured layouts.
+     * @throws IOException If the copybook or one of its members cannot be read.
+     */
+    public ParseResult parse(Path copybookPath, Map<Path, FileTime> includes) throws IOException {
         List<String> lines = FileUtils.readLines(copybookPath);
-        List<CobolToken> tokens = tokenizer.tokenize(lines);
+        List<CobolToken> tokens;
+        try {
+            tokens = tokenizer.tokenize(lines, includes);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
 
-        int recordLength = extractRecordLength(lines, tokens);
+        int declaredLength = extractRecordLength(lines, tokens);
 
         // Build the initial AST from tokens.
         ParseResult result = astBuilder.build(tokens);
         result.setFileName(copybookPath.getFileName().toString());
-        result.setTotalLength(recordLength);
+        result.setTotalLength(declaredLength > 0 ? declaredLength : DEFAULT_RECORD_LENGTH);
+        result.setDeclaredLength(declaredLength);
 
         // --- Processing Pipeline ---
         // 1. Calculate field positions and lengths.
@@ -62,7 +99,8 @@ public class CopybookParserFacade {
 
     /**
      * Intelligently extracts the record length from the copybook.
-     * It first checks for a "* REC LEN" comment, then for a base 01-level PIC clause.
+     * It first checks for a "* REC LEN" comment, then for a base 01-level PIC clause,
+     * and returns 0 when the copybook declares neither.
      */
     private int extractRecordLength(List<String> lines, List<CobolToken> tokens) {
         // Priority 1: Check for comments like "* REC LEN : 300"
@@ -85,6 +123,6 @@ public class CopybookParserFacade {
             }
         }
 
-        return 300; // Final fallback default
+        return 0;
     }
 }
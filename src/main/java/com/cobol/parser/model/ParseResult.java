@@ -1,4 +1,5 @@
 package com.cobol.parser.model;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Data;
 import java.util.ArrayList;
@@ -8,6 +9,9 @@ import java.util.List;
 public class ParseResult {
     private String fileName;
     private int totalLength;
+    /** Record length declared by a REC LEN comment or a base PIC X(n), or 0 when the copybook declares none. */
+    @JsonIgnore
+    private int declaredLength;
     private List<CobolField> referenceFields = new ArrayList<>();
     private List<RecordLayout> recordLayouts = new ArrayList<>();
 }
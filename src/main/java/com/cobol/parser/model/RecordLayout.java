@@ -1,5 +1,6 @@
 package com.cobol.parser.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Data;
 import java.util.ArrayList;
@@ -17,4 +18,11 @@ public class RecordLayout {
     private Map<String, String> identificationCriteria = new HashMap<>();
     private String description;
     private List<CobolField> fields = new ArrayList<>();
+    /**
+     * Physical record length in bytes fixed by the copybook (the base record of an overlay
+     * or a REC LEN comment), or 0 when only the fields determine it. Unlike {@code length},
+     * which counts display positions, this is the stride of records on disk.
+     */
+    @JsonIgnore
+    private int recordLength;
 }
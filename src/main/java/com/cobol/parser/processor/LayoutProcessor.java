@@ -1,5 +1,6 @@
 package com.cobol.parser.processor;
 
+import com.cobol.decoder.DecodePlan;
 import com.cobol.parser.model.CobolField;
 import com.cobol.parser.model.ConditionName;
 import com.cobol.parser.model.ParseResult;
@@ -101,12 +102,14 @@ public class LayoutProcessor implements AstProcessor {
     private void processMultiple01Levels(ParseResult result) {
         CobolField baseRecord = findBaseRecord(result.getReferenceFields());
         if (baseRecord == null) return;
+        int recordLength = recordLength(result, result.getReferenceFields());
 
         for (CobolField field : result.getReferenceFields()) {
             if (field.getLevel() == 1 && field.getRedefines() != null) {
                 RecordLayout layout = new RecordLayout(field.getName());
                 layout.setStartPosition(1);
                 layout.setLength(result.getTotalLength());
+                layout.setRecordLength(recordLength);
                 layout.setDescription("Memory overlay of " + field.getRedefines());
                 for (CobolField child : field.getChildren()) {
                     layout.getFields().add(deepCopy(child));
@@ -132,6 +135,7 @@ public class LayoutProcessor implements AstProcessor {
                 RecordLayout layout = new RecordLayout(layoutStructure.getName());
                 layout.setStartPosition(1);
                 layout.setLength(result.getTotalLength());
+                layout.setRecordLength(recordLength(result, List.of(mainRecord)));
                 layout.setDescription(layoutStructure.getName() + " - identified when " + recordTypeField.getName() + " = '" + condition.getValue() + "'");
 
                 layout.getFields().add(deepCopy(recordTypeField));
@@ -166,6 +170,22 @@ public class LayoutProcessor implements AstProcessor {
 
     // --- Helper Methods ---
 
+    /**
+     * Physical length of the record that the overlay layouts share: the declared length
+     * when the copybook has one, otherwise the storage of the longest 01-level record.
+     */
+    private int recordLength(ParseResult result, List<CobolField> records) {
+        if (result.getDeclaredLength() > 0) return result.getDeclaredLength();
+        int length = 0;
+        for (CobolField record : records) {
+            if (record.getLevel() != 1) continue;
+            RecordLayout overlay = new RecordLayout(record.getName());
+            overlay.getFields().add(deepCopy(record));
+            length = Math.max(length, DecodePlan.recordLength(overlay));
+        }
+        return length;
+    }
+
     private CobolField findBaseRecord(List<CobolField> rootFields) {
         return rootFields.stream().filter(f -> f.getLevel() == 1 && f.getRedefines() == null).findFirst().orElse(null);
     }
@@ -0,0 +1,200 @@
+package com.cobol.parser.token;
+
+import lombok.Data;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Resolves COPY members against a list of library directories and caches the tokens of
+ * every resolved member.
+ * <p>
+ * The cache key is the member's path and the REPLACING pairs, so one library instance
+ * can be shared by every copybook of a batch (and by several threads): common members
+ * are read and tokenized once. Each entry remembers the modification times of the
+ * member and of the members nested inside it; an edit to any of them, however deeply
+ * included, makes the next use re-tokenize the member and replace the entry, so a
+ * long-lived library keeps one entry per member and REPLACING phrase. Cached token
+ * lists are shared and must not be modified.
+ */
+public class CopybookLibrary {
+
+    static final Pattern TEXT_WORD_PATTERN = Pattern.compile("==|'[^']*'|\"[^\"]*\"|[A-Za-z0-9_:-]+|\\S");
+    private static final List<String> EXTENSIONS = List.of("", ".cpy", ".cbl", ".cob", ".CPY", ".CBL", ".COB");
+
+    private final List<Path> directories;
+    private final Map<IncludeKey, CachedMember> cache = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public CopybookLibrary(List<Path> directories) {
+        this.directories = List.copyOf(directories);
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /** Number of cached (member, REPLACING) entries. */
+    public int getCacheSize() {
+        return cache.size();
+    }
+
+    public List<Path> getDirectories() {
+        return directories;
+    }
+
+    /** Finds the file for a member name, trying each directory and extension in order. */
+    public Path locate(String member) throws IOException {
+        for (Path directory : directories) {
+            for (String extension : EXTENSIONS) {
+                Path candidate = directory.resolve(member + extension);
+                if (Files.isRegularFile(candidate)) return candidate.toAbsolutePath().normalize();
+            }
+        }
+        throw new NoSuchFileException("COPY member " + member + " not found in " + directories);
+    }
+
+    /**
+     * Returns the tokens of a member with the REPLACING pairs applied, tokenizing it
+     * (including its own COPY statements) on first use. The member and every member it
+     * includes are added to {@code includes} with their modification times.
+     */
+    List<CobolToken> resolve(String member, List<ReplacingPair> replacing, Tokenizer tokenizer,
+                             Deque<Path> includeStack, Map<Path, FileTime> includes) throws IOException {
+        Path path = locate(member);
+        if (includeStack.contains(path)) {
+            throw new IOException("Recursive COPY of " + path + " via " + includeStack);
+        }
+        IncludeKey key = new IncludeKey(path, replacing);
+        CachedMember cached = cache.get(key);
+        if (cached != null && cached.isCurrent()) {
+            hits.incrementAndGet();
+            includes.putAll(cached.includes);
+            return cached.tokens;
+        }
+        misses.incrementAndGet();
+        FileTime lastModified = Files.getLastModifiedTime(path);
+        List<String> lines = Files.readAllLines(path);
+        Map<Path, FileTime> memberIncludes = new HashMap<>();
+        memberIncludes.put(path, lastModified);
+        includeStack.push(path);
+        try {
+            List<CobolToken> tokens = tokenizer.tokenize(lines, replacing, includeStack, memberIncludes);
+            CachedMember entry = new CachedMember(Collections.unmodifiableList(tokens), Map.copyOf(memberIncludes));
+            cache.put(key, entry);
+            includes.putAll(entry.includes);
+            return entry.tokens;
+        } finally {
+            includeStack.pop();
+        }
+    }
+
+    /**
+     * Applies REPLACING to one source line, text word by text word, keeping the original spacing.
+     * Pseudo-text is matched within a line only.
+     */
+    static String applyReplacing(String line, List<ReplacingPair> replacing) {
+        if (replacing.isEmpty() || line.trim().startsWith("*")) return line;
+        List<int[]> spans = new ArrayList<>();
+        Matcher matcher = TEXT_WORD_PATTERN.matcher(line);
+        while (matcher.find()) spans.add(new int[]{matcher.start(), matcher.end()});
+
+        StringBuilder out = new StringBuilder(line.length());
+        int copied = 0;
+        for (int i = 0; i < spans.size(); ) {
+            int consumed = 0;
+            String replacement = null;
+            String word = line.substring(spans.get(i)[0], spans.get(i)[1]);
+            for (ReplacingPair pair : replacing) {
+                String from = pair.getFrom().get(0);
+                if (pair.getMode() == ReplacingPair.Mode.LEADING && word.length() > from.length()
+                        && word.regionMatches(true, 0, from, 0, from.length())) {
+                    replacement = pair.getTo() + word.substring(from.length());
+                    consumed = 1;
+                } else if (pair.getMode() == ReplacingPair.Mode.TRAILING && word.length() > from.length()
+                        && word.regionMatches(true, word.length() - from.length(), from, 0, from.length())) {
+                    replacement = word.substring(0, word.length() - from.length()) + pair.getTo();
+                    consumed = 1;
+                } else if (pair.getMode() == ReplacingPair.Mode.FULL && matches(line, spans, i, pair.getFrom())) {
+                    replacement = pair.getTo();
+                    consumed = pair.getFrom().size();
+                } else if (pair.getMode() == ReplacingPair.Mode.FULL && isTag(pair.getFrom())
+                        && word.toUpperCase().contains(from.toUpperCase())) {
+                    replacement = Pattern.compile(Pattern.quote(from), Pattern.CASE_INSENSITIVE).matcher(word)
+                            .replaceAll(Matcher.quoteReplacement(pair.getTo()));
+                    consumed = 1;
+                }
+                if (replacement != null) break;
+            }
+            if (replacement == null) {
+                i++;
+                continue;
+            }
+            out.append(line, copied, spans.get(i)[0]).append(replacement);
+            copied = spans.get(i + consumed - 1)[1];
+            i += consumed;
+        }
+        return out.append(line, copied, line.length()).toString();
+    }
+
+    /** A single {@code :TAG:} operand, which also replaces the tag inside longer words. */
+    private static boolean isTag(List<String> words) {
+        String word = words.get(0);
+        return words.size() == 1 && word.length() > 2 && word.startsWith(":") && word.endsWith(":");
+    }
+
+    private static boolean matches(String line, List<int[]> spans, int start, List<String> words) {
+        if (start + words.size() > spans.size()) return false;
+        for (int j = 0; j < words.size(); j++) {
+            int[] span = spans.get(start + j);
+            if (!line.substring(span[0], span[1]).equalsIgnoreCase(words.get(j))) return false;
+        }
+        return true;
+    }
+
+    /** Tokens of a member plus the modification time of every file they were built from. */
+    private static final class CachedMember {
+        private final List<CobolToken> tokens;
+        private final Map<Path, FileTime> includes;
+
+        CachedMember(List<CobolToken> tokens, Map<Path, FileTime> includes) {
+            this.tokens = tokens;
+            this.includes = includes;
+        }
+
+        boolean isCurrent() {
+            for (Map.Entry<Path, FileTime> include : includes.entrySet()) {
+                try {
+                    if (!Files.getLastModifiedTime(include.getKey()).equals(include.getValue())) return false;
+                } catch (IOException e) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    @Data
+    private static class IncludeKey {
+        private final Path path;
+        private final List<ReplacingPair> replacing;
+    }
+}
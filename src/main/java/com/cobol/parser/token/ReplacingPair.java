@@ -0,0 +1,21 @@
+package com.cobol.parser.token;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * One {@code REPLACING} operand pair of a COPY statement. {@code from} holds the text
+ * words to look for; {@code to} is the replacement text. LEADING and TRAILING pairs
+ * replace a single word's prefix or suffix instead of whole words. A FULL pair whose
+ * operand is a single {@code :TAG:} word also replaces the tag inside longer words, so
+ * {@code :TAG:-NAME} becomes {@code CUST-NAME} under {@code ==:TAG:== BY ==CUST==}.
+ */
+@Data
+public class ReplacingPair {
+    public enum Mode { FULL, LEADING, TRAILING }
+
+    private final Mode mode;
+    private final List<String> from;
+    private final String to;
+}
@@ -1,6 +1,14 @@
 package com.cobol.parser.token;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.function.Consumer;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -11,11 +19,42 @@ public class Tokenizer {
     private static final Pattern USAGE_PATTERN = Pattern.compile("(COMP(?:-[1-5X])?|BINARY|PACKED-DECIMAL|DISPLAY)(?!-)", Pattern.CASE_INSENSITIVE);
     private static final Pattern OCCURS_PATTERN = Pattern.compile("OCCURS\\s+(\\d+)", Pattern.CASE_INSENSITIVE);
     private static final Pattern REDEFINES_PATTERN = Pattern.compile("REDEFINES\\s+([A-Za-z0-9-]+)", Pattern.CASE_INSENSITIVE);
+    private static final Pattern COPY_PATTERN = Pattern.compile("^COPY\\s.*", Pattern.CASE_INSENSITIVE);
+    private final CopybookLibrary library;
+    public Tokenizer() {
+        this(null);
+    }
+    /** With a library, COPY statements are replaced by the member's tokens; without one they are skipped. */
+    public Tokenizer(CopybookLibrary library) {
+        this.library = library;
+    }
     public List<CobolToken> tokenize(List<String> lines) {
+        return tokenize(lines, new HashMap<>());
+    }
+    /** Tokenizes and adds every COPY member pulled in, nested ones included, to {@code includes}. */
+    public List<CobolToken> tokenize(List<String> lines, Map<Path, FileTime> includes) {
+        return tokenize(lines, List.of(), new ArrayDeque<>(), includes);
+    }
+    /**
+     * REPLACING applies to the member's own entries; nested COPY statements are left as
+     * written and their members are expanded with their own REPLACING phrase only.
+     */
+    List<CobolToken> tokenize(List<String> lines, List<ReplacingPair> replacing, Deque<Path> includeStack,
+                              Map<Path, FileTime> includes) {
         List<CobolToken> tokens = new ArrayList<>();
-        for (String line : lines) {
-            String trimmed = line.trim();
+        for (int i = 0; i < lines.size(); i++) {
+            String trimmed = lines.get(i).trim();
             if (trimmed.isEmpty() || trimmed.startsWith("*")) continue;
+            if (COPY_PATTERN.matcher(trimmed).matches()) {
+                StringBuilder statement = new StringBuilder(trimmed);
+                while (!isComplete(statement) && i + 1 < lines.size()) {
+                    String next = lines.get(++i).trim();
+                    if (!next.startsWith("*")) statement.append(' ').append(next);
+                }
+                if (library != null) tokens.addAll(copy(statement.toString(), includeStack, includes));
+                continue;
+            }
+            trimmed = CopybookLibrary.applyReplacing(trimmed, replacing);
             Matcher levelNameMatcher = LEVEL_NAME_PATTERN.matcher(trimmed);
             if (levelNameMatcher.matches()) {
                 CobolToken token = new CobolToken();
@@ -38,4 +77,96 @@ public class Tokenizer {
         Matcher matcher = pattern.matcher(line);
         if (matcher.find()) setter.accept(matcher.group(1));
     }
+    /** A COPY statement ends at the first period outside pseudo-text. */
+    private static boolean isComplete(CharSequence statement) {
+        return terminator(words(statement)) >= 0;
+    }
+    private static int terminator(List<String> words) {
+        boolean pseudoText = false;
+        for (int i = 0; i < words.size(); i++) {
+            if (words.get(i).equals("==")) pseudoText = !pseudoText;
+            else if (!pseudoText && words.get(i).equals(".")) return i;
+        }
+        return -1;
+    }
+    private static List<String> words(CharSequence text) {
+        List<String> words = new ArrayList<>();
+        Matcher matcher = CopybookLibrary.TEXT_WORD_PATTERN.matcher(text);
+        while (matcher.find()) words.add(matcher.group());
+        return words;
+    }
+    /**
+     * Parses {@code COPY member [OF|IN library] [SUPPRESS] [REPLACING operand BY operand ...].}
+     * and returns the member's tokens.
+     */
+    private List<CobolToken> copy(String statement, Deque<Path> includeStack, Map<Path, FileTime> includes) {
+        List<int[]> spans = new ArrayList<>();
+        List<String> words = new ArrayList<>();
+        Matcher matcher = CopybookLibrary.TEXT_WORD_PATTERN.matcher(statement);
+        while (matcher.find()) {
+            words.add(matcher.group());
+            spans.add(new int[]{matcher.start(), matcher.end()});
+        }
+        int end = terminator(words);
+        if (end < 2) throw new IllegalArgumentException("Malformed COPY statement: " + statement);
+        words = words.subList(0, end);
+        String member = unquote(words.get(1));
+        int i = 2;
+        if (i + 1 < words.size() && (words.get(i).equalsIgnoreCase("OF") || words.get(i).equalsIgnoreCase("IN"))) i += 2;
+        if (i < words.size() && words.get(i).equalsIgnoreCase("SUPPRESS")) i++;
+        List<ReplacingPair> replacing = new ArrayList<>();
+        if (i < words.size()) {
+            if (!words.get(i++).equalsIgnoreCase("REPLACING")) {
+                throw new IllegalArgumentException("Unsupported COPY clause: " + statement);
+            }
+            while (i < words.size()) {
+                ReplacingPair.Mode mode = ReplacingPair.Mode.FULL;
+                if (words.get(i).equalsIgnoreCase("LEADING")) mode = ReplacingPair.Mode.LEADING;
+                else if (words.get(i).equalsIgnoreCase("TRAILING")) mode = ReplacingPair.Mode.TRAILING;
+                if (mode != ReplacingPair.Mode.FULL) i++;
+                List<String> from = new ArrayList<>();
+                i = operand(words, i, from);
+                if (i >= words.size() || !words.get(i++).equalsIgnoreCase("BY")) {
+                    throw new IllegalArgumentException("Expected BY in COPY statement: " + statement);
+                }
+                int toStart = i;
+                i = operand(words, i, new ArrayList<>());
+                if (toStart >= words.size() || i > words.size()) {
+                    throw new IllegalArgumentException("Invalid REPLACING operand in COPY statement: " + statement);
+                }
+                String to = text(statement, words, spans, toStart, i);
+                if (from.isEmpty() || (mode != ReplacingPair.Mode.FULL && from.size() != 1)) {
+                    throw new IllegalArgumentException("Invalid REPLACING operand in COPY statement: " + statement);
+                }
+                replacing.add(new ReplacingPair(mode, List.copyOf(from), to));
+            }
+        }
+        try {
+            return library.resolve(member, replacing, this, includeStack, includes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    /** Reads one REPLACING operand: pseudo-text between {@code ==} delimiters, or a single word or literal. */
+    private static int operand(List<String> words, int i, List<String> out) {
+        if (i >= words.size()) return i;
+        if (!words.get(i).equals("==")) {
+            out.add(words.get(i));
+            return i + 1;
+        }
+        for (i++; i < words.size() && !words.get(i).equals("=="); i++) out.add(words.get(i));
+        return i + 1;
+    }
+    /** The source text of an operand, without its pseudo-text delimiters. */
+    private static String text(String statement, List<String> words, List<int[]> spans, int from, int to) {
+        if (words.get(from).equals("==")) {
+            from++;
+            to--;
+        }
+        return from >= to ? "" : statement.substring(spans.get(from)[0], spans.get(to - 1)[1]);
+    }
+    private static String unquote(String word) {
+        boolean quoted = word.length() >= 2 && (word.charAt(0) == '\'' || word.charAt(0) == '"');
+        return quoted ? word.substring(1, word.length() - 1) : word;
+    }
 }
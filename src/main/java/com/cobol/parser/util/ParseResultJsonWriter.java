@@ -0,0 +1,268 @@
+package com.cobol.parser.util;
+
+import com.cobol.parser.model.ArrayElement;
+import com.cobol.parser.model.CobolField;
+import com.cobol.parser.model.ConditionName;
+import com.cobol.parser.model.FieldPosition;
+import com.cobol.parser.model.ParseResult;
+import com.cobol.parser.model.RecordLayout;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Streams a {@link ParseResult} as JSON without reflection, producing the same text as
+ * {@link JsonUtils#toPrettyJson}: Jackson's default pretty printer, properties in
+ * declaration order, and null or empty strings and collections left out.
+ * <p>
+ * It exists so the command line never has to initialize Jackson databind. A property
+ * added to the model classes must also be added here.
+ */
+public class ParseResultJsonWriter {
+
+    private static final String NEWLINE = System.lineSeparator();
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+    private final Writer out;
+    private int depth;
+    private boolean first;
+
+    private ParseResultJsonWriter(Writer out) {
+        this.out = out;
+    }
+
+    public static String toPrettyJson(ParseResult result) {
+        StringWriter writer = new StringWriter();
+        try {
+            write(result, writer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return writer.toString();
+    }
+
+    public static void write(ParseResult result, Writer out) throws IOException {
+        new ParseResultJsonWriter(out).parseResult(result);
+    }
+
+    private void parseResult(ParseResult result) throws IOException {
+        beginObject();
+        string("fileName", result.getFileName());
+        number("totalLength", result.getTotalLength());
+        if (!isEmpty(result.getReferenceFields())) {
+            name("referenceFields");
+            beginArray();
+            for (int i = 0; i < result.getReferenceFields().size(); i++) {
+                separate(i);
+                field(result.getReferenceFields().get(i));
+            }
+            endArray();
+        }
+        if (!isEmpty(result.getRecordLayouts())) {
+            name("recordLayouts");
+            beginArray();
+            for (int i = 0; i < result.getRecordLayouts().size(); i++) {
+                separate(i);
+                layout(result.getRecordLayouts().get(i));
+            }
+            endArray();
+        }
+        endObject();
+    }
+
+    private void layout(RecordLayout layout) throws IOException {
+        beginObject();
+        string("name", layout.getName());
+        number("startPosition", layout.getStartPosition());
+        number("endPosition", layout.getEndPosition());
+        number("length", layout.getLength());
+        if (layout.getIdentificationCriteria() != null && !layout.getIdentificationCriteria().isEmpty()) {
+            name("identificationCriteria");
+            beginObject();
+            for (Map.Entry<String, String> entry : layout.getIdentificationCriteria().entrySet()) {
+                string(entry.getKey(), entry.getValue());
+            }
+            endObject();
+        }
+        string("description", layout.getDescription());
+        if (!isEmpty(layout.getFields())) {
+            name("fields");
+            beginArray();
+            for (int i = 0; i < layout.getFields().size(); i++) {
+                separate(i);
+                field(layout.getFields().get(i));
+            }
+            endArray();
+        }
+        endObject();
+    }
+
+    private void field(CobolField field) throws IOException {
+        beginObject();
+        number("level", field.getLevel());
+        string("name", field.getName());
+        string("picture", field.getPicture());
+        number("startPosition", field.getStartPosition());
+        number("endPosition", field.getEndPosition());
+        number("length", field.getLength());
+        string("dataType", field.getDataType());
+        string("usage", field.getUsage());
+        bool("signed", field.isSigned());
+        bool("decimal", field.isDecimal());
+        number("decimalPlaces", field.getDecimalPlaces());
+        number("occursCount", field.getOccursCount());
+        string("redefines", field.getRedefines());
+        string("value", field.getValue());
+        if (!isEmpty(field.getChildren())) {
+            name("children");
+            beginArray();
+            for (int i = 0; i < field.getChildren().size(); i++) {
+                separate(i);
+                field(field.getChildren().get(i));
+            }
+            endArray();
+        }
+        if (!isEmpty(field.getArrayElements())) {
+            name("arrayElements");
+            beginArray();
+            for (int i = 0; i < field.getArrayElements().size(); i++) {
+                separate(i);
+                arrayElement(field.getArrayElements().get(i));
+            }
+            endArray();
+        }
+        if (!isEmpty(field.getConditionNames())) {
+            name("conditionNames");
+            beginArray();
+            for (int i = 0; i < field.getConditionNames().size(); i++) {
+                separate(i);
+                ConditionName condition = field.getConditionNames().get(i);
+                beginObject();
+                string("name", condition.getName());
+                string("value", condition.getValue());
+                endObject();
+            }
+            endArray();
+        }
+        endObject();
+    }
+
+    private void arrayElement(ArrayElement element) throws IOException {
+        beginObject();
+        number("index", element.getIndex());
+        number("startPosition", element.getStartPosition());
+        number("endPosition", element.getEndPosition());
+        number("length", element.getLength());
+        if (!isEmpty(element.getFields())) {
+            name("fields");
+            beginArray();
+            for (int i = 0; i < element.getFields().size(); i++) {
+                separate(i);
+                FieldPosition position = element.getFields().get(i);
+                beginObject();
+                string("name", position.getName());
+                number("startPosition", position.getStartPosition());
+                number("endPosition", position.getEndPosition());
+                number("length", position.getLength());
+                string("picture", position.getPicture());
+                string("dataType", position.getDataType());
+                string("usage", position.getUsage());
+                endObject();
+            }
+            endArray();
+        }
+        endObject();
+    }
+
+    // --- Pretty printing, matching Jackson's DefaultPrettyPrinter ---
+
+    private static boolean isEmpty(List<?> values) {
+        return values == null || values.isEmpty();
+    }
+
+    /** Jackson separates array values with a comma and keeps them on the line. */
+    private void separate(int index) throws IOException {
+        out.write(index == 0 ? " " : ", ");
+    }
+
+    private void beginObject() throws IOException {
+        out.write('{');
+        depth++;
+        first = true;
+    }
+
+    private void endObject() throws IOException {
+        depth--;
+        if (first) {
+            out.write(' ');
+        } else {
+            newline();
+        }
+        out.write('}');
+        first = false;
+    }
+
+    private void beginArray() throws IOException {
+        out.write('[');
+    }
+
+    private void endArray() throws IOException {
+        out.write(" ]");
+    }
+
+    private void name(String name) throws IOException {
+        if (!first) out.write(',');
+        newline();
+        quote(name);
+        out.write(" : ");
+        first = false;
+    }
+
+    private void newline() throws IOException {
+        out.write(NEWLINE);
+        for (int i = 0; i < depth; i++) out.write("  ");
+    }
+
+    private void string(String name, String value) throws IOException {
+        if (value == null || value.isEmpty()) return;
+        name(name);
+        quote(value);
+    }
+
+    private void number(String name, int value) throws IOException {
+        name(name);
+        out.write(Integer.toString(value));
+    }
+
+    private void bool(String name, boolean value) throws IOException {
+        name(name);
+        out.write(value ? "true" : "false");
+    }
+
+    private void quote(String value) throws IOException {
+        out.write('"');
+        int copied = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= 0x20 && c != '"' && c != '\\') continue;
+            out.write(value, copied, i - copied);
+            copied = i + 1;
+            switch (c) {
+                case '"' -> out.write("\\\"");
+                case '\\' -> out.write("\\\\");
+                case '\b' -> out.write("\\b");
+                case '\t' -> out.write("\\t");
+                case '\f' -> out.write("\\f");
+                case '\n' -> out.write("\\n");
+                case '\r' -> out.write("\\r");
+                default -> out.write(new char[]{'\\', 'u', '0', '0', HEX[c >> 4], HEX[c & 0xF]});
+            }
+        }
+        out.write(value, copied, value.length() - copied);
+        out.write('"');
+    }
+}
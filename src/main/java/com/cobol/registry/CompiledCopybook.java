@@ -0,0 +1,47 @@
+package com.cobol.registry;
+
+import com.cobol.decoder.DecodePlan;
+import com.cobol.parser.model.ParseResult;
+import lombok.Getter;
+
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * A parsed copybook together with a full decode plan for each of its layouts. Once
+ * published in a {@link RegistrySnapshot} instances are never modified.
+ */
+@Getter
+public class CompiledCopybook {
+    private final String name;
+    private final Path path;
+    private final FileTime lastModified;
+    private final ParseResult parseResult;
+    private final Map<String, DecodePlan> plans;
+    /** COPY members the copybook was built from, with the modification times that were read. */
+    private final Map<Path, FileTime> includes;
+
+    public CompiledCopybook(String name, Path path, FileTime lastModified, ParseResult parseResult) {
+        this(name, path, lastModified, parseResult, Map.of());
+    }
+
+    public CompiledCopybook(String name, Path path, FileTime lastModified, ParseResult parseResult,
+                            Map<Path, FileTime> includes) {
+        this.name = name;
+        this.path = path;
+        this.lastModified = lastModified;
+        this.parseResult = parseResult;
+        Map<String, DecodePlan> compiled = new LinkedHashMap<>();
+        parseResult.getRecordLayouts().forEach(layout -> compiled.put(layout.getName(), DecodePlan.compile(layout)));
+        this.plans = Collections.unmodifiableMap(compiled);
+        this.includes = Map.copyOf(includes);
+    }
+
+    public Optional<DecodePlan> getPlan(String layoutName) {
+        return Optional.ofNullable(plans.get(layoutName));
+    }
+}
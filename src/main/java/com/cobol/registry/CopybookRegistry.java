@@ -0,0 +1,249 @@
+package com.cobol.registry;
+
+import com.cobol.parser.CopybookParserFacade;
+import com.cobol.parser.model.ParseResult;
+import com.cobol.parser.token.CopybookLibrary;
+import com.cobol.parser.util.FileUtils;
+import com.cobol.rules.RuleManager;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.FileTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+/**
+ * Long-lived holder of compiled copybooks and rules for services that must pick up
+ * schema changes without a restart.
+ * <p>
+ * The copybook and rules directories are watched with a {@link WatchService}. When
+ * files change only those files are re-parsed; the result is published as a new
+ * {@link RegistrySnapshot} built copy-on-write from the previous one and swapped in
+ * atomically. Readers call {@link #current()}, which is a single volatile read, so the
+ * per-record path never takes a lock. A file that fails to parse keeps its previous
+ * version, and the failure is reported by {@link #getErrors()} until the file loads
+ * again. The watcher survives failed refreshes; a failure of the watch loop itself is
+ * reported under the copybook directory.
+ * <p>
+ * COPY statements are resolved through a {@link CopybookLibrary} whose directories are
+ * watched as well; when a member changes, every copybook that includes it, directly or
+ * through another member, is re-parsed.
+ */
+public class CopybookRegistry implements Closeable {
+
+    public static final String RULES_FILE_NAME = "rules.yml";
+    private static final List<String> COPYBOOK_EXTENSIONS = List.of(".cbl", ".cpy", ".cob");
+    private static final long DEBOUNCE_MILLIS = 200;
+
+    private final Path copybookDir;
+    private final Path rulesFile;
+    private final Charset charset;
+    private final CopybookLibrary library;
+    private final CopybookParserFacade parser;
+    private final AtomicReference<RegistrySnapshot> current = new AtomicReference<>();
+    private final Map<Path, Exception> errors = new ConcurrentHashMap<>();
+    private WatchService watchService;
+    private Thread watcher;
+
+    /** Resolves COPY members from the copybook directory itself. */
+    public CopybookRegistry(Path copybookDir, Path rulesDir, Charset charset) throws IOException {
+        this(copybookDir, rulesDir, charset, new CopybookLibrary(List.of(copybookDir.toAbsolutePath().normalize())));
+    }
+
+    public CopybookRegistry(Path copybookDir, Path rulesDir, Charset charset, CopybookLibrary library) throws IOException {
+        this.copybookDir = copybookDir.toAbsolutePath().normalize();
+        this.rulesFile = rulesDir.toAbsolutePath().normalize().resolve(RULES_FILE_NAME);
+        this.charset = charset;
+        this.library = library;
+        this.parser = new CopybookParserFacade(library);
+        RuleManager rules = Files.exists(rulesFile) ? RuleManager.load(rulesFile) : RuleManager.getInstance();
+        current.set(new RegistrySnapshot(0, new HashMap<>(), rules, charset));
+        refresh(listCopybooks());
+    }
+
+    /** The latest published snapshot. */
+    public RegistrySnapshot current() {
+        return current.get();
+    }
+
+    /**
+     * The last failure for each file that currently fails to load, keyed by its path.
+     * The copybook directory's entry, if any, holds the last failure of the watch loop.
+     */
+    public Map<Path, Exception> getErrors() {
+        return Map.copyOf(errors);
+    }
+
+    /** Starts watching the copybook, rules and library directories on a background daemon thread. */
+    public synchronized void start() throws IOException {
+        if (watcher != null) return;
+        watchService = copybookDir.getFileSystem().newWatchService();
+        Set<Path> directories = new LinkedHashSet<>(List.of(copybookDir, rulesFile.getParent()));
+        for (Path directory : library.getDirectories()) directories.add(directory.toAbsolutePath().normalize());
+        for (Path directory : directories) {
+            if (Files.isDirectory(directory)) register(directory);
+        }
+        watcher = new Thread(this::watchLoop, "copybook-registry-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    /**
+     * Re-reads the given files and publishes a new snapshot if anything changed. Paths
+     * that no longer exist are removed from the registry. Copybooks including a changed
+     * COPY member are re-parsed as well.
+     */
+    public synchronized void refresh(Collection<Path> changedFiles) {
+        RegistrySnapshot previous = current.get();
+        Map<String, CompiledCopybook> copybooks = new HashMap<>(previous.getCopybooks());
+        RuleManager rules = previous.getRules();
+        boolean modified = false;
+
+        Set<Path> files = new LinkedHashSet<>();
+        Set<Path> dependents = new LinkedHashSet<>();
+        for (Path changed : changedFiles) {
+            Path file = changed.toAbsolutePath().normalize();
+            files.add(file);
+            for (CompiledCopybook copybook : previous.getCopybooks().values()) {
+                FileTime included = copybook.getIncludes().get(file);
+                if (included != null && !included.equals(lastModified(file))) dependents.add(copybook.getPath());
+            }
+        }
+        files.addAll(dependents);
+
+        for (Path file : files) {
+            try {
+                if (file.equals(rulesFile)) {
+                    if (Files.exists(file)) {
+                        rules = RuleManager.load(file);
+                        modified = true;
+                    }
+                    errors.remove(file);
+                } else if (isCopybook(file)) {
+                    String name = FileUtils.removeExtension(file.getFileName().toString());
+                    CompiledCopybook existing = copybooks.get(name);
+                    if (!Files.exists(file)) {
+                        errors.remove(file);
+                        if (existing != null && existing.getPath().equals(file)) {
+                            copybooks.remove(name);
+                            modified = true;
+                        }
+                        continue;
+                    }
+                    FileTime lastModified = Files.getLastModifiedTime(file);
+                    if (existing != null && existing.getPath().equals(file) && existing.getLastModified().equals(lastModified)
+                            && !dependents.contains(file)) {
+                        continue;
+                    }
+                    Map<Path, FileTime> includes = new HashMap<>();
+                    ParseResult result = parser.parse(file, includes);
+                    copybooks.put(name, new CompiledCopybook(name, file, lastModified, result, includes));
+                    errors.remove(file);
+                    modified = true;
+                }
+            } catch (Exception e) {
+                // Keep the previous version of this file.
+                errors.put(file, e);
+            }
+        }
+        if (modified) {
+            current.set(new RegistrySnapshot(previous.getVersion() + 1, copybooks, rules, charset));
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (watchService != null) watchService.close();
+        if (watcher != null) watcher.interrupt();
+        watcher = null;
+    }
+
+    private void register(Path directory) throws IOException {
+        directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+    }
+
+    private void watchLoop() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                Set<Path> changed = new LinkedHashSet<>();
+                boolean overflow = collect(watchService.take(), changed);
+                // Editors and copy tools often emit several events per save; gather them into one refresh.
+                WatchKey next;
+                while ((next = watchService.poll(DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                    overflow |= collect(next, changed);
+                }
+                IOException listing = null;
+                if (overflow) {
+                    current.get().getCopybooks().values().forEach(c -> {
+                        changed.add(c.getPath());
+                        changed.addAll(c.getIncludes().keySet());
+                    });
+                    changed.add(rulesFile);
+                    try {
+                        changed.addAll(listCopybooks());
+                    } catch (IOException e) {
+                        listing = e;
+                    }
+                }
+                refresh(changed);
+                if (listing != null) throw listing;
+                errors.remove(copybookDir);
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return; // Registry closed.
+            } catch (Exception e) {
+                // Keep watching; the next event retries.
+                errors.put(copybookDir, e);
+            }
+        }
+    }
+
+    /** Modification time of a file, or {@code null} once it is gone. */
+    private static FileTime lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private boolean collect(WatchKey key, Set<Path> changed) {
+        Path directory = (Path) key.watchable();
+        boolean overflow = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) overflow = true;
+            else changed.add(directory.resolve((Path) event.context()));
+        }
+        key.reset();
+        return overflow;
+    }
+
+    private List<Path> listCopybooks() throws IOException {
+        if (!Files.isDirectory(copybookDir)) return List.of();
+        try (Stream<Path> files = Files.list(copybookDir)) {
+            return files.filter(this::isCopybook).toList();
+        }
+    }
+
+    private boolean isCopybook(Path file) {
+        if (!file.getParent().equals(copybookDir)) return false;
+        String name = file.getFileName().toString().toLowerCase();
+        return COPYBOOK_EXTENSIONS.stream().anyMatch(name::endsWith);
+    }
+}
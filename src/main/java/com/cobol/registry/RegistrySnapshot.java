@@ -0,0 +1,63 @@
+package com.cobol.registry;
+
+import com.cobol.rules.RecordClassifier;
+import com.cobol.rules.Rule;
+import com.cobol.rules.RuleManager;
+
+import java.nio.charset.Charset;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An immutable, consistent view of every compiled copybook and the rule set at one
+ * point in time. Callers take a snapshot once per file (or unit of work) and keep
+ * using it until they finish, even if the registry has since published a newer one.
+ */
+public final class RegistrySnapshot {
+
+    private final long version;
+    private final Map<String, CompiledCopybook> copybooks;
+    private final RuleManager rules;
+    private final Charset charset;
+    private final Map<String, RecordClassifier> classifiers = new ConcurrentHashMap<>();
+
+    RegistrySnapshot(long version, Map<String, CompiledCopybook> copybooks, RuleManager rules, Charset charset) {
+        this.version = version;
+        this.copybooks = Collections.unmodifiableMap(copybooks);
+        this.rules = rules;
+        this.charset = charset;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public Map<String, CompiledCopybook> getCopybooks() {
+        return copybooks;
+    }
+
+    public Optional<CompiledCopybook> getCopybook(String name) {
+        return Optional.ofNullable(copybooks.get(name));
+    }
+
+    public RuleManager getRules() {
+        return rules;
+    }
+
+    /**
+     * Returns a classifier for the given copybook and rule. The prototype is built once
+     * per snapshot; every call hands out an independent copy for the caller's thread.
+     */
+    public RecordClassifier classifier(String copybookName, String ruleId) {
+        String key = copybookName + '\u0000' + ruleId;
+        return classifiers.computeIfAbsent(key, k -> {
+            CompiledCopybook copybook = getCopybook(copybookName)
+                    .orElseThrow(() -> new IllegalArgumentException("Unknown copybook: " + copybookName));
+            Rule rule = rules.getRule(ruleId)
+                    .orElseThrow(() -> new IllegalArgumentException("Unknown rule: " + ruleId));
+            return RecordClassifier.forRule(copybook.getParseResult(), rule, charset);
+        }).copy();
+    }
+}
@@ -0,0 +1,10 @@
+package com.cobol.rules;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+@Data
+public class ControlTotal {
+    @JsonProperty("detailField")
+    private String detailField;
+    @JsonProperty("trailerField")
+    private String trailerField;
+}
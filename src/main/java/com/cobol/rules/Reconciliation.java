@@ -0,0 +1,16 @@
+package com.cobol.rules;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+import java.util.ArrayList;
+import java.util.List;
+@Data
+public class Reconciliation {
+    @JsonProperty("detailLayout")
+    private String detailLayout;
+    @JsonProperty("trailerLayout")
+    private String trailerLayout;
+    @JsonProperty("countField")
+    private String countField;
+    @JsonProperty("totals")
+    private List<ControlTotal> totals = new ArrayList<>();
+}
@@ -0,0 +1,217 @@
+package com.cobol.rules;
+
+import com.cobol.decoder.DecodePlan;
+import com.cobol.parser.model.ParseResult;
+import com.cobol.parser.model.RecordLayout;
+import org.springframework.expression.Expression;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Decides which {@link RecordLayout} of a parsed copybook describes a raw record,
+ * following the identifier of a {@link Rule}. Classifiers hold per-call scratch state
+ * and must be confined to a single thread; use {@link #copy()} for additional threads.
+ */
+public abstract class RecordClassifier {
+
+    public static final int UNCLASSIFIED = -1;
+
+    protected final List<RecordLayout> layouts;
+    private List<String> aliases = List.of();
+
+    protected RecordClassifier(List<RecordLayout> layouts) {
+        this.layouts = layouts;
+    }
+
+    /** The candidate layouts; {@link #classify} returns an index into this list. */
+    public List<RecordLayout> getLayouts() {
+        return layouts;
+    }
+
+    /**
+     * Returns the index of the layout with the given name, accepting either the
+     * {@link RecordLayout} name or, for rule-based classifiers, the rule's
+     * {@code layoutName}. Returns -1 when there is no such layout.
+     */
+    public int indexOf(String name) {
+        for (int i = 0; i < layouts.size(); i++) {
+            if (layouts.get(i).getName().equals(name) || (i < aliases.size() && name.equals(aliases.get(i)))) return i;
+        }
+        return -1;
+    }
+
+    /** Returns the index of the matching layout, or {@link #UNCLASSIFIED}. */
+    public abstract int classify(ByteBuffer buffer, int recordStart, int recordLength);
+
+    /** Returns an independent classifier with the same configuration. */
+    public abstract RecordClassifier copy();
+
+    public static RecordClassifier single(RecordLayout layout) {
+        return new SingleLayoutClassifier(List.of(layout));
+    }
+
+    /**
+     * Selects the layout whose physical record length equals the record length, which is how variable
+     * length files often distinguish their record types. The first layout wins on ties.
+     */
+    public static RecordClassifier byLength(List<RecordLayout> layouts) {
+        return new LengthClassifier(layouts);
+    }
+
+    public static RecordClassifier forRule(ParseResult parseResult, Rule rule, Charset charset) {
+        List<RecordLayout> layouts = new ArrayList<>();
+        for (LayoutMapping mapping : rule.getLayouts()) {
+            layouts.add(findLayout(parseResult, rule, mapping));
+        }
+        String type = rule.getIdentifier() == null ? "SINGLE_LAYOUT" : rule.getIdentifier().getType();
+        RecordClassifier classifier = switch (type) {
+            case "FIELD_VALUE_MATCH" -> new FieldValueClassifier(layouts, rule, charset);
+            case "SPEL_CONDITION" -> new SpelClassifier(layouts, rule, charset);
+            case "SINGLE_LAYOUT" -> new SingleLayoutClassifier(layouts);
+            default -> throw new IllegalArgumentException("Unsupported identifier type '" + type + "' in rule " + rule.getId());
+        };
+        return classifier.withAliases(rule);
+    }
+
+    final RecordClassifier withAliases(Rule rule) {
+        this.aliases = rule.getLayouts().stream().map(LayoutMapping::getLayoutName).toList();
+        return this;
+    }
+
+    private static RecordLayout findLayout(ParseResult parseResult, Rule rule, LayoutMapping mapping) {
+        for (RecordLayout layout : parseResult.getRecordLayouts()) {
+            if (layout.getName().equals(mapping.getLayoutName()) || layout.getName().equals(mapping.getCopybookRecordName())) {
+                return layout;
+            }
+        }
+        if ("SINGLE_LAYOUT".equals(rule.getIdentifier() == null ? null : rule.getIdentifier().getType())
+                && !parseResult.getRecordLayouts().isEmpty()) {
+            return parseResult.getRecordLayouts().get(0);
+        }
+        throw new IllegalStateException("Rule '" + rule.getId() + "' refers to layout '" + mapping.getLayoutName()
+                + "' which is not present in " + parseResult.getFileName());
+    }
+
+    private static final class SingleLayoutClassifier extends RecordClassifier {
+        SingleLayoutClassifier(List<RecordLayout> layouts) {
+            super(layouts);
+        }
+
+        @Override
+        public int classify(ByteBuffer buffer, int recordStart, int recordLength) {
+            return layouts.isEmpty() ? UNCLASSIFIED : 0;
+        }
+
+        @Override
+        public RecordClassifier copy() {
+            return this;
+        }
+    }
+
+    private static final class LengthClassifier extends RecordClassifier {
+        private final Map<Integer, Integer> indexByLength = new HashMap<>();
+
+        LengthClassifier(List<RecordLayout> layouts) {
+            super(layouts);
+            for (int i = 0; i < layouts.size(); i++) indexByLength.putIfAbsent(DecodePlan.recordLength(layouts.get(i)), i);
+        }
+
+        @Override
+        public int classify(ByteBuffer buffer, int recordStart, int recordLength) {
+            return indexByLength.getOrDefault(recordLength, UNCLASSIFIED);
+        }
+
+        @Override
+        public RecordClassifier copy() {
+            return this;
+        }
+    }
+
+    /**
+     * Compares the bytes at the identifier position with each mapping's value, so no
+     * per-record string is ever created.
+     */
+    private static final class FieldValueClassifier extends RecordClassifier {
+        private final Rule rule;
+        private final Charset charset;
+        private final int offset;
+        private final int length;
+        private final byte[][] expected;
+        private final byte[] scratch;
+
+        FieldValueClassifier(List<RecordLayout> layouts, Rule rule, Charset charset) {
+            super(layouts);
+            this.rule = rule;
+            this.charset = charset;
+            this.offset = rule.getIdentifier().getPosition() - 1;
+            this.length = rule.getIdentifier().getLength();
+            this.expected = new byte[rule.getLayouts().size()][];
+            for (int i = 0; i < expected.length; i++) {
+                expected[i] = Arrays.copyOf(rule.getLayouts().get(i).getValue().getBytes(charset), length);
+            }
+            this.scratch = new byte[length];
+        }
+
+        @Override
+        public int classify(ByteBuffer buffer, int recordStart, int recordLength) {
+            if (offset + length > recordLength) return UNCLASSIFIED;
+            buffer.get(recordStart + offset, scratch, 0, length);
+            for (int i = 0; i < expected.length; i++) {
+                if (Arrays.equals(scratch, expected[i])) return i;
+            }
+            return UNCLASSIFIED;
+        }
+
+        @Override
+        public RecordClassifier copy() {
+            return new FieldValueClassifier(layouts, rule, charset).withAliases(rule);
+        }
+    }
+
+    /**
+     * Evaluates each mapping's SpEL condition in order with the record text bound to
+     * {@code #record}; the first condition that yields {@code true} wins.
+     */
+    private static final class SpelClassifier extends RecordClassifier {
+        private final Rule rule;
+        private final Charset charset;
+        private final Expression[] conditions;
+        private final StandardEvaluationContext context = new StandardEvaluationContext();
+        private byte[] scratch = new byte[0];
+
+        SpelClassifier(List<RecordLayout> layouts, Rule rule, Charset charset) {
+            super(layouts);
+            this.rule = rule;
+            this.charset = charset;
+            SpelExpressionParser parser = new SpelExpressionParser();
+            this.conditions = new Expression[rule.getLayouts().size()];
+            for (int i = 0; i < conditions.length; i++) {
+                conditions[i] = parser.parseExpression(rule.getLayouts().get(i).getCondition());
+            }
+        }
+
+        @Override
+        public int classify(ByteBuffer buffer, int recordStart, int recordLength) {
+            if (scratch.length < recordLength) scratch = new byte[recordLength];
+            buffer.get(recordStart, scratch, 0, recordLength);
+            context.setVariable("record", new String(scratch, 0, recordLength, charset));
+            for (int i = 0; i < conditions.length; i++) {
+                if (Boolean.TRUE.equals(conditions[i].getValue(context, Boolean.class))) return i;
+            }
+            return UNCLASSIFIED;
+        }
+
+        @Override
+        public RecordClassifier copy() {
+            return new SpelClassifier(layouts, rule, charset).withAliases(rule);
+        }
+    }
+}
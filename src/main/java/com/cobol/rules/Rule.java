@@ -12,4 +12,6 @@ public class Rule {
     private Identifier identifier;
     @JsonProperty("layouts")
     private List<LayoutMapping> layouts;
+    @JsonProperty("reconciliation")
+    private Reconciliation reconciliation;
 }
@@ -2,7 +2,12 @@ package com.cobol.rules;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Map;
 import java.util.Optional;
 import java.util.function.Function;
@@ -11,26 +16,51 @@ import java.util.stream.Collectors;
 public class RuleManager {
 
     private static final String RULES_FILE = "/rules.yml";
-    private static final RuleManager INSTANCE = new RuleManager();
     private final Map<String, Rule> ruleMap;
 
-    private RuleManager() {
-        try {
-            ObjectMapper mapper = new ObjectMapper(new YAMLFactory());
-            InputStream inputStream = RuleManager.class.getResourceAsStream(RULES_FILE);
+    private RuleManager(Map<String, Rule> ruleMap) {
+        this.ruleMap = Collections.unmodifiableMap(ruleMap);
+    }
+
+    private static RuleManager loadClasspathRules() {
+        try (InputStream inputStream = RuleManager.class.getResourceAsStream(RULES_FILE)) {
             if (inputStream == null) throw new IllegalStateException("Cannot find rules file: " + RULES_FILE);
-            RuleSet ruleSet = mapper.readValue(inputStream, RuleSet.class);
-            this.ruleMap = ruleSet.getRules().stream().collect(Collectors.toMap(Rule::getId, Function.identity()));
+            return read(inputStream);
         } catch (Exception e) {
             throw new RuntimeException("Failed to load or parse rules configuration.", e);
         }
     }
 
+    /**
+     * Loads an independent rule set from a rules file on disk, leaving the classpath
+     * singleton untouched.
+     */
+    public static RuleManager load(Path rulesFile) throws IOException {
+        try (InputStream inputStream = Files.newInputStream(rulesFile)) {
+            return read(inputStream);
+        }
+    }
+
+    private static RuleManager read(InputStream inputStream) throws IOException {
+        ObjectMapper mapper = new ObjectMapper(new YAMLFactory());
+        RuleSet ruleSet = mapper.readValue(inputStream, RuleSet.class);
+        return new RuleManager(ruleSet.getRules().stream().collect(Collectors.toMap(Rule::getId, Function.identity())));
+    }
+
+    /** Loads the classpath rules (and the YAML parser) on first use rather than at class initialization. */
     public static RuleManager getInstance() {
-        return INSTANCE;
+        return Holder.INSTANCE;
+    }
+
+    private static final class Holder {
+        private static final RuleManager INSTANCE = loadClasspathRules();
     }
 
     public Optional<Rule> getRule(String ruleId) {
         return Optional.ofNullable(ruleMap.get(ruleId));
     }
+
+    public Collection<Rule> getRules() {
+        return ruleMap.values();
+    }
 }
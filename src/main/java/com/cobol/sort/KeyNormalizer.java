@@ -0,0 +1,214 @@
+package com.cobol.sort;
+
+import com.cobol.decoder.CompiledField;
+import com.cobol.decoder.DecodePlan;
+import com.cobol.decoder.FieldDecoder;
+import com.cobol.decoder.FieldEncoding;
+import com.cobol.decoder.Projection;
+import com.cobol.parser.model.RecordLayout;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Turns the raw bytes of one or more key fields into a fixed-width byte string whose
+ * unsigned lexicographic order is the collating order of the keys, so records can be
+ * compared without decoding them.
+ * <ul>
+ *   <li>Text keys are copied as-is, i.e. they collate in the file's own code page, as
+ *   a mainframe SORT with format CH does.</li>
+ *   <li>Packed and zoned keys become a sign byte followed by their digits; the digits
+ *   of negative values are inverted so larger magnitudes sort first.</li>
+ *   <li>Signed binary keys have their sign bit flipped; floating point keys use the
+ *   usual IEEE 754 total-order transform.</li>
+ *   <li>Descending keys have every normalized byte inverted.</li>
+ * </ul>
+ */
+public class KeyNormalizer {
+
+    private final List<CompiledField> fields = new ArrayList<>();
+    private final boolean[] descending;
+    private final int width;
+
+    public KeyNormalizer(RecordLayout layout, List<SortKey> keys) {
+        this.descending = new boolean[keys.size()];
+        int total = 0;
+        for (int i = 0; i < keys.size(); i++) {
+            List<CompiledField> resolved = DecodePlan.compile(layout, Projection.of(keys.get(i).getFieldName())).getFields();
+            if (resolved.size() != 1) {
+                throw new IllegalArgumentException("Key " + keys.get(i).getFieldName() + " must name one elementary field of "
+                        + layout.getName() + " but matched " + resolved.size());
+            }
+            fields.add(resolved.get(0));
+            descending[i] = keys.get(i).isDescending();
+            total += normalizedWidth(resolved.get(0));
+        }
+        this.width = total;
+    }
+
+    /** Width in bytes of every normalized key. */
+    public int getWidth() {
+        return width;
+    }
+
+    /** The resolved key fields, in key order. */
+    public List<CompiledField> getFields() {
+        return fields;
+    }
+
+    /** Highest record offset plus length touched by any key field. */
+    public int getRequiredLength() {
+        int required = 0;
+        for (CompiledField field : fields) required = Math.max(required, field.getOffset() + field.getLength());
+        return required;
+    }
+
+    /** Writes the normalized key of the record at {@code recordStart} into {@code target}. */
+    public void normalize(ByteBuffer record, int recordStart, byte[] target, int targetOffset) {
+        int position = targetOffset;
+        for (int i = 0; i < fields.size(); i++) {
+            CompiledField field = fields.get(i);
+            int start = position;
+            position = normalizeField(field, record, recordStart + field.getOffset(), target, position);
+            if (descending[i]) {
+                for (int j = start; j < position; j++) target[j] = (byte) ~target[j];
+            }
+        }
+    }
+
+    /**
+     * Writes the normalized key for Java values, one per key field: strings for text
+     * keys and numbers for numeric keys. The result compares equal to the normalized key
+     * of a record holding those values, which lets callers probe an index or sorted
+     * file without building a raw record first.
+     */
+    public void normalizeValues(List<?> values, Charset charset, byte[] target, int targetOffset) {
+        if (values.size() != fields.size()) {
+            throw new IllegalArgumentException("Expected " + fields.size() + " key values but got " + values.size());
+        }
+        int position = targetOffset;
+        for (int i = 0; i < fields.size(); i++) {
+            int start = position;
+            position = normalizeValue(fields.get(i), values.get(i), charset, target, position);
+            if (descending[i]) {
+                for (int j = start; j < position; j++) target[j] = (byte) ~target[j];
+            }
+        }
+    }
+
+    private static int normalizeValue(CompiledField field, Object value, Charset charset, byte[] target, int position) {
+        int length = field.getLength();
+        switch (field.getEncoding()) {
+            case TEXT -> {
+                byte[] bytes = String.valueOf(value).getBytes(charset);
+                if (bytes.length > length) {
+                    throw new IllegalArgumentException("Value " + value + " does not fit key field " + field.getPath());
+                }
+                byte pad = " ".getBytes(charset)[0];
+                for (int j = 0; j < length; j++) target[position + j] = j < bytes.length ? bytes[j] : pad;
+                return position + length;
+            }
+            case BINARY -> {
+                long unscaled = toDecimal(value).movePointRight(field.getScale()).longValueExact();
+                for (int j = length - 1; j >= 0; j--, unscaled >>= 8) target[position + j] = (byte) unscaled;
+                if (field.isSigned()) target[position] ^= (byte) 0x80;
+                return position + length;
+            }
+            case FLOAT, DOUBLE -> {
+                ByteBuffer bits = ByteBuffer.wrap(target, position, length);
+                if (field.getEncoding() == FieldEncoding.FLOAT) bits.putFloat(((Number) value).floatValue());
+                else bits.putDouble(((Number) value).doubleValue());
+                boolean negative = target[position] < 0;
+                for (int j = position; j < position + length; j++) {
+                    target[j] = negative ? (byte) ~target[j] : (j == position ? (byte) (target[j] ^ 0x80) : target[j]);
+                }
+                return position + length;
+            }
+            default -> {
+                BigDecimal decimal = toDecimal(value).setScale(field.getScale(), RoundingMode.UNNECESSARY);
+                String digits = decimal.unscaledValue().abs().toString();
+                boolean packed = field.getEncoding() == FieldEncoding.PACKED;
+                int capacity = packed ? length * 2 - 1 : length;
+                if (digits.length() > capacity) {
+                    throw new IllegalArgumentException("Value " + value + " does not fit key field " + field.getPath());
+                }
+                digits = "0".repeat(capacity - digits.length()) + digits;
+                for (int j = 0; j < length; j++) {
+                    target[position + 1 + j] = packed
+                            ? (byte) (((digits.charAt(2 * j) - '0') << 4) | (2 * j + 1 < capacity ? digits.charAt(2 * j + 1) - '0' : 0))
+                            : (byte) (digits.charAt(j) - '0');
+                }
+                return signMagnitude(target, position, length, decimal.signum() < 0);
+            }
+        }
+    }
+
+    private static BigDecimal toDecimal(Object value) {
+        if (value instanceof BigDecimal decimal) return decimal;
+        if (value instanceof Long || value instanceof Integer || value instanceof Short) return BigDecimal.valueOf(((Number) value).longValue());
+        return new BigDecimal(value.toString().trim());
+    }
+
+    private static int normalizedWidth(CompiledField field) {
+        return switch (field.getEncoding()) {
+            case PACKED, ZONED -> field.getLength() + 1;
+            default -> field.getLength();
+        };
+    }
+
+    private static int normalizeField(CompiledField field, ByteBuffer record, int offset, byte[] target, int position) {
+        int length = field.getLength();
+        switch (field.getEncoding()) {
+            case TEXT -> record.get(offset, target, position, length);
+            case BINARY -> {
+                record.get(offset, target, position, length);
+                if (field.isSigned()) target[position] ^= (byte) 0x80;
+            }
+            case FLOAT, DOUBLE -> {
+                record.get(offset, target, position, length);
+                boolean negative = target[position] < 0;
+                for (int j = position; j < position + length; j++) {
+                    target[j] = negative ? (byte) ~target[j] : (j == position ? (byte) (target[j] ^ 0x80) : target[j]);
+                }
+            }
+            case PACKED -> {
+                // The sign nibble is replaced by zero so the remaining BCD digits compare numerically.
+                int last = record.get(offset + length - 1) & 0xFF;
+                boolean negative = FieldDecoder.isNegativeSign(last & 0x0F);
+                record.get(offset, target, position + 1, length);
+                target[position + length] = (byte) (last & 0xF0);
+                return signMagnitude(target, position, length, negative);
+            }
+            case ZONED -> {
+                int last = record.get(offset + length - 1) & 0xFF;
+                for (int j = 0; j < length; j++) {
+                    target[position + 1 + j] = (byte) FieldDecoder.overpunchDigit(record.get(offset + j) & 0xFF);
+                }
+                boolean negative = FieldDecoder.isNegativeZone(last);
+                return signMagnitude(target, position, length, negative);
+            }
+        }
+        return position + length;
+    }
+
+    private static int signMagnitude(byte[] target, int position, int length, boolean negative) {
+        boolean zero = true;
+        for (int j = position + 1; j <= position + length; j++) {
+            if (target[j] != 0) {
+                zero = false;
+                break;
+            }
+        }
+        if (negative && !zero) {
+            target[position] = 0;
+            for (int j = position + 1; j <= position + length; j++) target[j] = (byte) ~target[j];
+        } else {
+            target[position] = 1;
+        }
+        return position + length + 1;
+    }
+}
@@ -0,0 +1,257 @@
+package com.cobol.sort;
+
+import com.cobol.decoder.DecodePlan;
+import com.cobol.parser.model.RecordLayout;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Sorts a file of fixed-length records by key fields of a {@link RecordLayout}, the
+ * way a mainframe SORT step would, without decoding records.
+ * <p>
+ * The input is cut into runs that fit an off-heap buffer. Runs are sorted in parallel
+ * by their normalized keys (see {@link KeyNormalizer}) and written to temporary files,
+ * which are then combined with a k-way merge, in several passes if there are more runs
+ * than {@link SortOptions#getMergeFanIn()}. The sort is stable: records with equal keys
+ * keep their input order.
+ */
+public class RecordSorter {
+
+    private static final int MERGE_BUFFER_BYTES = 1 << 20;
+
+    private final KeyNormalizer normalizer;
+    private final SortOptions options;
+    private final int recordLength;
+
+    public RecordSorter(RecordLayout layout, List<SortKey> keys) {
+        this(layout, keys, new SortOptions());
+    }
+
+    public RecordSorter(RecordLayout layout, List<SortKey> keys, SortOptions options) {
+        if (keys.isEmpty()) throw new IllegalArgumentException("At least one sort key is required");
+        this.normalizer = new KeyNormalizer(layout, keys);
+        this.options = options;
+        this.recordLength = options.getRecordLength() > 0 ? options.getRecordLength() : DecodePlan.recordLength(layout);
+        if (recordLength < normalizer.getRequiredLength()) {
+            throw new IllegalArgumentException("Key fields extend past the record length of " + recordLength);
+        }
+    }
+
+    /** Sorts {@code input} into {@code output} and returns the number of records. */
+    public long sort(Path input, Path output) throws IOException {
+        Path tempDirectory = options.getTempDirectory() != null ? options.getTempDirectory()
+                : output.toAbsolutePath().getParent();
+        List<Path> runs = new ArrayList<>();
+        try {
+            long records = createRuns(input, output, tempDirectory, runs);
+            if (!runs.isEmpty()) mergeAll(runs, output, tempDirectory);
+            return records;
+        } finally {
+            for (Path run : runs) Files.deleteIfExists(run);
+        }
+    }
+
+    // --- Run generation ---
+
+    /**
+     * Reads the input into pooled direct buffers and sorts each one on a worker. When the
+     * whole input fits in one buffer it is written straight to the output and no runs
+     * are created.
+     */
+    private long createRuns(Path input, Path output, Path tempDirectory, List<Path> runs) throws IOException {
+        int threads = Math.max(1, options.getThreads());
+        int recordsPerRun = (int) Math.max(1, Math.min(Integer.MAX_VALUE / Math.max(recordLength, normalizer.getWidth()),
+                options.getRunBufferBytes() / recordLength));
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        BlockingQueue<ByteBuffer> pool = new ArrayBlockingQueue<>(threads + 1);
+        List<Future<?>> tasks = new ArrayList<>();
+        long records = 0;
+        try (FileChannel in = FileChannel.open(input, StandardOpenOption.READ)) {
+            if (in.size() % recordLength != 0) {
+                throw new IOException("Size of " + input + " is not a multiple of the record length " + recordLength);
+            }
+            boolean singleRun = in.size() <= (long) recordsPerRun * recordLength;
+            int buffers = singleRun ? 1 : threads + 1;
+            for (int i = 0; i < buffers; i++) {
+                pool.add(ByteBuffer.allocateDirect((int) Math.min((long) recordsPerRun * recordLength, Math.max(in.size(), recordLength))));
+            }
+            while (true) {
+                ByteBuffer buffer = pool.take();
+                buffer.clear();
+                while (buffer.hasRemaining() && in.read(buffer) >= 0) {
+                    // fill the run buffer
+                }
+                buffer.flip();
+                if (!buffer.hasRemaining()) break;
+                records += buffer.remaining() / recordLength;
+                Path target = singleRun ? output : Files.createTempFile(tempDirectory, "sort-run-", ".tmp");
+                if (!singleRun) runs.add(target);
+                tasks.add(executor.submit(() -> {
+                    try {
+                        writeSorted(buffer, target);
+                    } finally {
+                        pool.put(buffer);
+                    }
+                    return null;
+                }));
+                if (singleRun) break;
+            }
+            for (Future<?> task : tasks) task.get();
+            if (records == 0) Files.write(output, new byte[0]);
+            return records;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) throw io;
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw new IOException("Failed to sort a run of " + input, e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while sorting " + input, e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void writeSorted(ByteBuffer run, Path target) throws IOException {
+        int count = run.remaining() / recordLength;
+        int width = normalizer.getWidth();
+        byte[] keys = new byte[count * width];
+        for (int i = 0; i < count; i++) normalizer.normalize(run, i * recordLength, keys, i * width);
+        int[] order = sortIndexes(keys, width, count);
+
+        try (FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer block = ByteBuffer.allocateDirect(Math.max(recordLength, MERGE_BUFFER_BYTES / recordLength * recordLength));
+            for (int index : order) {
+                if (block.remaining() < recordLength) drain(block, out);
+                block.put(block.position(), run, index * recordLength, recordLength);
+                block.position(block.position() + recordLength);
+            }
+            drain(block, out);
+        }
+    }
+
+    /** Stable bottom-up merge sort of record indexes by their normalized keys. */
+    private static int[] sortIndexes(byte[] keys, int width, int count) {
+        int[] order = new int[count];
+        int[] scratch = new int[count];
+        for (int i = 0; i < count; i++) order[i] = i;
+        for (int size = 1; size < count; size <<= 1) {
+            for (int low = 0; low < count - size; low += size << 1) {
+                int mid = low + size;
+                int high = Math.min(low + (size << 1), count);
+                if (compare(keys, order[mid - 1], order[mid], width) <= 0) continue;
+                int i = low, j = mid, k = low;
+                while (i < mid && j < high) scratch[k++] = compare(keys, order[j], order[i], width) < 0 ? order[j++] : order[i++];
+                while (i < mid) scratch[k++] = order[i++];
+                while (j < high) scratch[k++] = order[j++];
+                System.arraycopy(scratch, low, order, low, high - low);
+            }
+        }
+        return order;
+    }
+
+    private static int compare(byte[] keys, int a, int b, int width) {
+        return Arrays.compareUnsigned(keys, a * width, a * width + width, keys, b * width, b * width + width);
+    }
+
+    // --- Merging ---
+
+    private void mergeAll(List<Path> runs, Path output, Path tempDirectory) throws IOException {
+        int fanIn = Math.max(2, options.getMergeFanIn());
+        while (runs.size() > fanIn) {
+            List<Path> next = new ArrayList<>();
+            for (int i = 0; i < runs.size(); i += fanIn) {
+                List<Path> group = runs.subList(i, Math.min(i + fanIn, runs.size()));
+                Path merged = Files.createTempFile(tempDirectory, "sort-run-", ".tmp");
+                next.add(merged);
+                merge(group, merged);
+                for (Path run : group) Files.deleteIfExists(run);
+            }
+            runs.clear();
+            runs.addAll(next);
+        }
+        merge(runs, output);
+    }
+
+    private void merge(List<Path> runs, Path target) throws IOException {
+        List<RunCursor> cursors = new ArrayList<>();
+        int bufferBytes = Math.max(recordLength, (MERGE_BUFFER_BYTES / Math.max(1, runs.size())) / recordLength * recordLength);
+        PriorityQueue<RunCursor> heap = new PriorityQueue<>(runs.size(), (a, b) -> {
+            int byKey = Arrays.compareUnsigned(a.key, b.key);
+            return byKey != 0 ? byKey : Integer.compare(a.sequence, b.sequence);
+        });
+        try (FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (int i = 0; i < runs.size(); i++) {
+                RunCursor cursor = new RunCursor(runs.get(i), i, bufferBytes);
+                cursors.add(cursor);
+                if (cursor.advance()) heap.add(cursor);
+            }
+            ByteBuffer block = ByteBuffer.allocateDirect(Math.max(recordLength, MERGE_BUFFER_BYTES / recordLength * recordLength));
+            while (!heap.isEmpty()) {
+                RunCursor smallest = heap.poll();
+                if (block.remaining() < recordLength) drain(block, out);
+                block.put(block.position(), smallest.buffer, smallest.recordStart, recordLength);
+                block.position(block.position() + recordLength);
+                if (smallest.advance()) heap.add(smallest);
+            }
+            drain(block, out);
+        } finally {
+            for (RunCursor cursor : cursors) cursor.channel.close();
+        }
+    }
+
+    private static void drain(ByteBuffer block, FileChannel out) throws IOException {
+        block.flip();
+        while (block.hasRemaining()) out.write(block);
+        block.clear();
+    }
+
+    /** Buffered reader over one sorted run, exposing the current record and its key. */
+    private final class RunCursor {
+        final FileChannel channel;
+        final int sequence;
+        final ByteBuffer buffer;
+        final byte[] key = new byte[normalizer.getWidth()];
+        int recordStart;
+
+        RunCursor(Path run, int sequence, int bufferBytes) throws IOException {
+            this.channel = FileChannel.open(run, StandardOpenOption.READ);
+            this.sequence = sequence;
+            this.buffer = ByteBuffer.allocateDirect(bufferBytes).limit(0);
+            this.recordStart = -recordLength;
+        }
+
+        boolean advance() throws IOException {
+            recordStart += recordLength;
+            if (recordStart + recordLength > buffer.limit()) {
+                buffer.clear();
+                while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                    // refill with whole records
+                }
+                buffer.flip();
+                if (!buffer.hasRemaining()) return false;
+                if (buffer.remaining() % recordLength != 0) throw new EOFException("Run file ends inside a record");
+                recordStart = 0;
+            }
+            normalizer.normalize(buffer, recordStart, key, 0);
+            return true;
+        }
+    }
+}
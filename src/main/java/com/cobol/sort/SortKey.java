@@ -0,0 +1,20 @@
+package com.cobol.sort;
+
+import lombok.Data;
+
+/**
+ * One key of a sort specification: a field name of the record layout and its order.
+ */
+@Data
+public class SortKey {
+    private final String fieldName;
+    private final boolean descending;
+
+    public static SortKey ascending(String fieldName) {
+        return new SortKey(fieldName, false);
+    }
+
+    public static SortKey descending(String fieldName) {
+        return new SortKey(fieldName, true);
+    }
+}
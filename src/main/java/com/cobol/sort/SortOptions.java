@@ -0,0 +1,22 @@
+package com.cobol.sort;
+
+import lombok.Data;
+
+import java.nio.file.Path;
+
+/**
+ * Resource limits for {@link RecordSorter}.
+ */
+@Data
+public class SortOptions {
+    /** Fixed record length in bytes; 0 means the length of the sort layout. */
+    private int recordLength;
+    /** Size of each off-heap run buffer. One buffer per thread plus one is allocated. */
+    private long runBufferBytes = 64L << 20;
+    /** Number of runs sorted concurrently. */
+    private int threads = Runtime.getRuntime().availableProcessors();
+    /** Maximum number of runs merged in one pass. */
+    private int mergeFanIn = 128;
+    /** Directory for run files; {@code null} means the output file's directory. */
+    private Path tempDirectory;
+}
@@ -0,0 +1,120 @@
+package com.cobol.aggregate;
+
+import com.cobol.parser.CopybookParserFacade;
+import com.cobol.parser.model.RecordLayout;
+import com.cobol.rules.RecordClassifier;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Sums COMP-3 amounts whose group totals overflow a {@code long}, on one thread and on
+ * several threads whose partial aggregates are merged.
+ */
+class GroupByAggregatorTest {
+
+    private static final int RECORD_LENGTH = 19;
+    private static final long LARGEST = 99_999_999_999_999_999L;
+
+    @TempDir
+    Path dir;
+
+    private RecordLayout layout;
+
+    @BeforeEach
+    void parse() throws Exception {
+        Path copybook = Files.write(dir.resolve("SALE.cbl"), List.of(
+                "       01  SALE-RECORD.",
+                "           05  SALE-REGION         PIC X(4).",
+                "           05  SALE-AMOUNT         PIC S9(15)V99 COMP-3.",
+                "           05  SALE-SEQ            PIC 9(6)."));
+        layout = new CopybookParserFacade().parse(copybook).getRecordLayouts().get(0);
+    }
+
+    /** Nine-byte COMP-3 encoding of an unscaled value. */
+    private static byte[] packed(long value) {
+        byte[] bytes = new byte[9];
+        long digits = Math.abs(value);
+        bytes[8] = (byte) ((digits % 10) << 4 | (value < 0 ? 0x0D : 0x0C));
+        digits /= 10;
+        for (int i = 7; i >= 0; i--, digits /= 100) {
+            bytes[i] = (byte) ((digits / 10 % 10) << 4 | digits % 10);
+        }
+        return bytes;
+    }
+
+    private static Map<String, BigDecimal> sums(List<GroupResult> results) {
+        Map<String, BigDecimal> sums = new TreeMap<>();
+        for (GroupResult result : results) sums.put((String) result.getKeys().get("SALE-REGION"), result.getSums().get("SALE-AMOUNT"));
+        return sums;
+    }
+
+    @Test
+    void groupSumsCrossIntoOneHundredTwentyEightBits() throws Exception {
+        // EAST climbs past Long.MAX_VALUE, WEST falls below Long.MIN_VALUE and NRTH
+        // overflows before its negative amounts bring it back into range.
+        int count = 900;
+        ByteBuffer data = ByteBuffer.allocate(count * RECORD_LENGTH);
+        Map<String, BigDecimal> expected = new TreeMap<>();
+        Map<String, Long> counts = new TreeMap<>();
+        for (int i = 0; i < count; i++) {
+            String region = switch (i % 3) {
+                case 0 -> "EAST";
+                case 1 -> "WEST";
+                default -> "NRTH";
+            };
+            long amount = switch (region) {
+                case "EAST" -> LARGEST - i;
+                case "WEST" -> -LARGEST + i;
+                default -> i < count / 2 ? LARGEST : -LARGEST;
+            };
+            int start = i * RECORD_LENGTH;
+            data.put(start, region.getBytes(StandardCharsets.ISO_8859_1));
+            data.put(start + 4, packed(amount));
+            data.put(start + 13, String.format("%06d", i).getBytes(StandardCharsets.ISO_8859_1));
+            expected.merge(region, BigDecimal.valueOf(amount, 2), BigDecimal::add);
+            counts.merge(region, 1L, Long::sum);
+        }
+        Path file = Files.write(dir.resolve("sales.dat"), data.array());
+        GroupByAggregator aggregator = new GroupByAggregator(layout, List.of("SALE-REGION"), List.of("SALE-AMOUNT"));
+
+        for (int threads : new int[]{1, 3}) {
+            List<GroupResult> results = aggregator.aggregate(file, threads);
+            assertEquals(expected, sums(results), "threads=" + threads);
+            assertEquals(List.of("EAST", "NRTH", "WEST"), results.stream().map(r -> r.getKeys().get("SALE-REGION")).toList());
+            for (GroupResult result : results) {
+                assertEquals(counts.get((String) result.getKeys().get("SALE-REGION")), result.getCount());
+            }
+        }
+        assertTrue(expected.get("EAST").unscaledValue().bitLength() > 63);
+        assertTrue(expected.get("WEST").unscaledValue().bitLength() > 63);
+    }
+
+    @Test
+    void rejectsInvalidArguments() throws Exception {
+        Path file = Files.write(dir.resolve("sales.dat"), new byte[RECORD_LENGTH]);
+        GroupByAggregator aggregator = new GroupByAggregator(layout, List.of("SALE-REGION"), List.of("SALE-AMOUNT"));
+        assertThrows(IllegalArgumentException.class, () -> aggregator.aggregate(file, 0));
+
+        RecordLayout other = new CopybookParserFacade().parse(Files.write(dir.resolve("OTHER.cbl"), List.of(
+                "       01  OTHER-RECORD.",
+                "           05  OTHER-CODE          PIC X(19)."))).getRecordLayouts().get(0);
+        assertThrows(IllegalArgumentException.class,
+                () -> aggregator.aggregate(file, RecordClassifier.single(other), RECORD_LENGTH, 1));
+        assertThrows(IllegalArgumentException.class,
+                () -> new GroupByAggregator(layout, List.of("SALE-REGION"), List.of("SALE-SEQ-MISSING")));
+    }
+}
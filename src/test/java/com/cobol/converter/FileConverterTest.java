@@ -0,0 +1,259 @@
+package com.cobol.converter;
+
+import com.cobol.decoder.Projection;
+import com.cobol.parser.CopybookParserFacade;
+import com.cobol.parser.model.ParseResult;
+import com.cobol.rules.ControlTotal;
+import com.cobol.rules.Identifier;
+import com.cobol.rules.LayoutMapping;
+import com.cobol.rules.Reconciliation;
+import com.cobol.rules.RecordClassifier;
+import com.cobol.rules.Rule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Converts a posting file of header, detail and trailer records told apart by their
+ * record type, including a run that crashes part-way and resumes from its checkpoint.
+ */
+class FileConverterTest {
+
+    private static final int RECORD_LENGTH = 20;
+    private static final int DETAILS = 5_000;
+
+    @TempDir
+    Path dir;
+
+    private ParseResult copybook;
+    private Rule rule;
+
+    @BeforeEach
+    void parse() throws Exception {
+        Path file = Files.write(dir.resolve("POSTING.cbl"), List.of(
+                "       01  POSTING-HEADER.",
+                "           05  HDR-TYPE            PIC X(2).",
+                "           05  HDR-DATE            PIC 9(8).",
+                "       01  POSTING-DETAIL.",
+                "           05  DTL-TYPE            PIC X(2).",
+                "           05  DTL-ACCOUNT         PIC X(6).",
+                "           05  DTL-AMOUNT          PIC S9(7)V99 COMP-3.",
+                "           05  DTL-MEMO            PIC X(7).",
+                "       01  POSTING-TRAILER.",
+                "           05  TRL-TYPE            PIC X(2).",
+                "           05  TRL-COUNT           PIC 9(7).",
+                "           05  TRL-TOTAL           PIC S9(13)V99 COMP-3."));
+        copybook = new CopybookParserFacade().parse(file);
+
+        Identifier identifier = new Identifier();
+        identifier.setType("FIELD_VALUE_MATCH");
+        identifier.setPosition(1);
+        identifier.setLength(2);
+        rule = new Rule();
+        rule.setId("postings");
+        rule.setIdentifier(identifier);
+        rule.setLayouts(List.of(mapping("HD", "POSTING-HEADER", "HEADER"),
+                mapping("DT", "POSTING-DETAIL", "DETAIL"),
+                mapping("TR", "POSTING-TRAILER", "TRAILER")));
+    }
+
+    private static LayoutMapping mapping(String value, String recordName, String layoutName) {
+        LayoutMapping mapping = new LayoutMapping();
+        mapping.setValue(value);
+        mapping.setCopybookRecordName(recordName);
+        mapping.setLayoutName(layoutName);
+        return mapping;
+    }
+
+    private RecordClassifier classifier() {
+        return RecordClassifier.forRule(copybook, rule, StandardCharsets.ISO_8859_1);
+    }
+
+    /** Packed encoding of an unscaled value in {@code length} bytes. */
+    private static byte[] packed(long value, int length) {
+        byte[] bytes = new byte[length];
+        long digits = Math.abs(value);
+        bytes[length - 1] = (byte) ((digits % 10) << 4 | (value < 0 ? 0x0D : 0x0C));
+        digits /= 10;
+        for (int i = length - 2; i >= 0; i--, digits /= 100) {
+            bytes[i] = (byte) ((digits / 10 % 10) << 4 | digits % 10);
+        }
+        return bytes;
+    }
+
+    private static void text(ByteBuffer data, int offset, String value) {
+        data.put(offset, value.getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    /** A header, {@link #DETAILS} details and a trailer carrying {@code trailerCount} and {@code trailerTotal}. */
+    private static byte[] postings(long trailerCount, long trailerTotal) {
+        ByteBuffer data = ByteBuffer.allocate((DETAILS + 2) * RECORD_LENGTH);
+        for (int i = 0; i < data.capacity(); i++) data.put(i, (byte) ' ');
+        text(data, 0, "HD20261018");
+        for (int i = 1; i <= DETAILS; i++) {
+            int start = i * RECORD_LENGTH;
+            text(data, start, "DT" + String.format("%06d", i % 97));
+            data.put(start + 8, packed(i % 2 == 0 ? i * 101L : -i, 5));
+            text(data, start + 13, "MEMO" + i % 10);
+        }
+        int trailer = (DETAILS + 1) * RECORD_LENGTH;
+        text(data, trailer, "TR" + String.format("%07d", trailerCount));
+        data.put(trailer + 9, packed(trailerTotal, 8));
+        return data.array();
+    }
+
+    private static long detailTotal() {
+        long total = 0;
+        for (int i = 1; i <= DETAILS; i++) total += i % 2 == 0 ? i * 101L : -i;
+        return total;
+    }
+
+    /** A channel over {@code file} that fails once more than {@code limit} bytes have been read. */
+    private static ReadableByteChannel failingAfter(Path file, long limit) throws IOException {
+        SeekableByteChannel channel = Files.newByteChannel(file);
+        return new ReadableByteChannel() {
+            private long read;
+
+            @Override
+            public int read(ByteBuffer buffer) throws IOException {
+                if (read > limit) throw new IOException("simulated failure");
+                int n = channel.read(buffer);
+                read += Math.max(n, 0);
+                return n;
+            }
+
+            @Override
+            public boolean isOpen() {
+                return channel.isOpen();
+            }
+
+            @Override
+            public void close() throws IOException {
+                channel.close();
+            }
+        };
+    }
+
+    private ConverterOptions checkpointed() {
+        ConverterOptions options = new ConverterOptions();
+        options.setBatchRecords(100);
+        options.setCheckpointFile(dir.resolve("conversion.checkpoint"));
+        options.setCheckpointIntervalBytes(RECORD_LENGTH * 500L);
+        return options;
+    }
+
+    /** Runs a checkpointed conversion that fails part-way and leaves partial lines behind. */
+    private void crash(Path input, Path output) throws IOException {
+        try (ReadableByteChannel failing = failingAfter(input, RECORD_LENGTH * 3_210L)) {
+            assertThrows(IOException.class, () -> new FileConverter(classifier(), checkpointed()).convert(failing, output));
+        }
+        assertTrue(Files.exists(dir.resolve("conversion.checkpoint")));
+        try (var files = Files.list(output)) {
+            for (Path file : files.toList()) Files.writeString(file, "{\"DTL-TYPE\":\"D", StandardOpenOption.APPEND);
+        }
+    }
+
+    @Test
+    void writesOneFilePerLayout() throws Exception {
+        Path input = Files.write(dir.resolve("postings.dat"), postings(DETAILS, detailTotal()));
+        ConversionResult result = new FileConverter(classifier()).convert(input, dir.resolve("out"));
+
+        assertEquals(input.toFile().length(), result.getBytesRead());
+        assertEquals(Map.of("POSTING-HEADER", 1L, "POSTING-DETAIL", (long) DETAILS, "POSTING-TRAILER", 1L), result.getRecordCounts());
+        assertEquals(0, result.getUnclassifiedRecords());
+        List<String> details = Files.readAllLines(result.getOutputFiles().get("POSTING-DETAIL"));
+        assertEquals(DETAILS, details.size());
+        assertTrue(details.get(1).contains("\"DTL-ACCOUNT\":\"000002\""), details.get(1));
+        assertTrue(details.get(1).contains("2.02"), details.get(1));
+    }
+
+    @Test
+    void resumingAfterAFailureGivesIdenticalOutput() throws Exception {
+        Path input = Files.write(dir.resolve("postings.dat"), postings(DETAILS, detailTotal()));
+        ConversionResult reference = new FileConverter(classifier()).convert(input, dir.resolve("reference"));
+        Path output = dir.resolve("out");
+        crash(input, output);
+
+        ConversionResult resumed = new FileConverter(classifier(), checkpointed()).convert(input, output);
+
+        assertTrue(resumed.getResumedFrom() > 0);
+        assertTrue(resumed.getResumedFrom() % RECORD_LENGTH == 0);
+        assertEquals(reference.getRecordCounts(), resumed.getRecordCounts());
+        for (Map.Entry<String, Path> file : reference.getOutputFiles().entrySet()) {
+            assertArrayEquals(Files.readAllBytes(file.getValue()), Files.readAllBytes(resumed.getOutputFiles().get(file.getKey())),
+                    file.getKey());
+        }
+        assertFalse(Files.exists(dir.resolve("conversion.checkpoint")));
+    }
+
+    @Test
+    void resumingWithDifferentProjectionsIsRejected() throws Exception {
+        Path input = Files.write(dir.resolve("postings.dat"), postings(DETAILS, detailTotal()));
+        Path output = dir.resolve("out");
+        crash(input, output);
+
+        ConverterOptions options = checkpointed();
+        options.setProjections(Map.of("POSTING-DETAIL", Projection.of("DTL-ACCOUNT")));
+        assertThrows(IOException.class, () -> new FileConverter(classifier(), options).convert(input, output));
+    }
+
+    private ReconciliationReport reconcile(byte[] postings) throws IOException {
+        ControlTotal total = new ControlTotal();
+        total.setDetailField("DTL-AMOUNT");
+        total.setTrailerField("TRL-TOTAL");
+        Reconciliation reconciliation = new Reconciliation();
+        reconciliation.setDetailLayout("DETAIL");
+        reconciliation.setTrailerLayout("TRAILER");
+        reconciliation.setCountField("TRL-COUNT");
+        reconciliation.setTotals(new ArrayList<>(List.of(total)));
+        ConverterOptions options = new ConverterOptions();
+        options.setReconciliation(reconciliation);
+
+        Path input = Files.write(dir.resolve("postings.dat"), postings);
+        return new FileConverter(classifier(), options).convert(input, dir.resolve("out")).getReconciliation();
+    }
+
+    @Test
+    void balancedControlTotalsReconcile() throws Exception {
+        ReconciliationReport report = reconcile(postings(DETAILS, detailTotal()));
+
+        assertTrue(report.isBalanced(), report.getMismatches().toString());
+        assertEquals(DETAILS, report.getDetailCount());
+        assertEquals(DETAILS, report.getTrailerCount());
+        assertEquals(BigDecimal.valueOf(detailTotal(), 2), report.getDetailTotals().get("DTL-AMOUNT"));
+    }
+
+    @Test
+    void mismatchedControlTotalsAreReported() throws Exception {
+        ReconciliationReport report = reconcile(postings(DETAILS - 1, detailTotal() + 1));
+
+        assertFalse(report.isBalanced());
+        assertEquals(2, report.getMismatches().size(), report.getMismatches().toString());
+    }
+
+    @Test
+    void checkpointingCannotBeCombinedWithReconciliation() {
+        ConverterOptions options = checkpointed();
+        options.setReconciliation(new Reconciliation());
+        assertThrows(IllegalArgumentException.class, () -> new FileConverter(classifier(), options));
+    }
+}
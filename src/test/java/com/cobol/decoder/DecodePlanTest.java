@@ -0,0 +1,141 @@
+package com.cobol.decoder;
+
+import com.cobol.parser.CopybookParserFacade;
+import com.cobol.parser.model.ParseResult;
+import com.cobol.parser.model.RecordLayout;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Decodes hand-built records of employee-record.cbl, whose COMP and COMP-3 fields take
+ * fewer bytes than their display positions.
+ */
+class DecodePlanTest {
+
+    private static ParseResult copybook;
+
+    @BeforeAll
+    static void parse() throws Exception {
+        copybook = new CopybookParserFacade().parse(Paths.get("employee-record.cbl"));
+    }
+
+    private static RecordLayout layout(String name) {
+        return copybook.getRecordLayouts().stream().filter(l -> l.getName().equals(name)).findFirst().orElseThrow();
+    }
+
+    private static int offsetOf(DecodePlan plan, String path) {
+        return plan.getFields().stream().filter(f -> f.getPath().equals(path)).findFirst().orElseThrow().getOffset();
+    }
+
+    @Test
+    void placesFieldsAfterComputationalFieldsAtTheirStorageOffsets() {
+        DecodePlan data = DecodePlan.compile(layout("EMPLOYEE-DATA-RECORD"));
+        assertEquals(0, offsetOf(data, "EMP-SALARY"));
+        assertEquals(5, offsetOf(data, "EMP-HIRE-DATE"));
+        assertEquals(9, offsetOf(data, "EMP-STATUS"));
+        assertEquals(10, offsetOf(data, "EMP-BENEFITS[1].BENEFIT-CODE"));
+        assertEquals(12, offsetOf(data, "EMP-BENEFITS[1].BENEFIT-AMOUNT"));
+        assertEquals(16, offsetOf(data, "EMP-BENEFITS[2].BENEFIT-CODE"));
+        assertEquals(40, offsetOf(data, "EMP-TEST"));
+
+        assertEquals(4, offsetOf(DecodePlan.compile(layout("EMPLOYEE-HDR-RECORD")), "EMP-NAME"));
+    }
+
+    @Test
+    void recordLengthIsTheBaseRecordLength() {
+        for (RecordLayout layout : copybook.getRecordLayouts()) {
+            assertEquals(250, DecodePlan.recordLength(layout), layout.getName());
+        }
+    }
+
+    @Test
+    void decodesHandBuiltDataRecord() {
+        byte[] record = new byte[250];
+        Arrays.fill(record, (byte) ' ');
+        ByteBuffer buffer = ByteBuffer.wrap(record);
+        buffer.put(0, new byte[]{0x12, 0x34, 0x56, 0x78, (byte) 0x9C});   // EMP-SALARY 1234567.89
+        buffer.putInt(5, 20240115);                                       // EMP-HIRE-DATE
+        record[9] = 'A';                                                  // EMP-STATUS
+        buffer.put(10, "MD".getBytes(StandardCharsets.ISO_8859_1));      // EMP-BENEFITS[1]
+        buffer.put(12, new byte[]{0x00, 0x12, 0x34, 0x5F});               //   BENEFIT-AMOUNT 123.45
+        buffer.put(16, "DN".getBytes(StandardCharsets.ISO_8859_1));      // EMP-BENEFITS[2]
+        buffer.put(18, new byte[]{0x00, 0x00, 0x09, (byte) 0x9F});        //   BENEFIT-AMOUNT 0.99
+        for (int benefit = 2; benefit < 5; benefit++) {                   // EMP-BENEFITS[3..5] 0.00
+            buffer.put(12 + benefit * 6, new byte[]{0x00, 0x00, 0x00, 0x0F});
+        }
+        buffer.put(40, "TAIL".getBytes(StandardCharsets.ISO_8859_1));    // EMP-TEST
+
+        Map<String, Object> values = new RecordDecoder(DecodePlan.compile(layout("EMPLOYEE-DATA-RECORD"))).decode(record);
+
+        assertEquals(new BigDecimal("1234567.89"), values.get("EMP-SALARY"));
+        assertEquals(20240115L, ((Number) values.get("EMP-HIRE-DATE")).longValue());
+        assertEquals("A", values.get("EMP-STATUS"));
+        assertEquals("MD", values.get("EMP-BENEFITS[1].BENEFIT-CODE"));
+        assertEquals(new BigDecimal("123.45"), values.get("EMP-BENEFITS[1].BENEFIT-AMOUNT"));
+        assertEquals("DN", values.get("EMP-BENEFITS[2].BENEFIT-CODE"));
+        assertEquals(new BigDecimal("0.99"), values.get("EMP-BENEFITS[2].BENEFIT-AMOUNT"));
+        assertEquals("TAIL", values.get("EMP-TEST"));
+    }
+
+    @Test
+    void decodesHandBuiltHeaderRecord() {
+        byte[] record = new byte[250];
+        Arrays.fill(record, (byte) ' ');
+        ByteBuffer.wrap(record).putInt(0, 42);
+        System.arraycopy("JANE DOE".getBytes(StandardCharsets.ISO_8859_1), 0, record, 4, 8);
+
+        Map<String, Object> values = new RecordDecoder(DecodePlan.compile(layout("EMPLOYEE-HDR-RECORD"))).decode(record);
+
+        assertEquals(42L, ((Number) values.get("EMP-ID")).longValue());
+        assertEquals("JANE DOE", values.get("EMP-NAME"));
+    }
+
+    @Test
+    void undeclaredRecordLengthIsTheStorageOfTheRecord(@TempDir Path dir) throws Exception {
+        Path cbl = dir.resolve("posting.cbl");
+        Files.write(cbl, List.of(
+                "       01  POSTING-RECORD.",
+                "           05  REC-TYPE            PIC X.",
+                "               88  REC-HDR         VALUE 'H'.",
+                "               88  REC-DTL         VALUE 'D'.",
+                "           05  POSTING-HEADER.",
+                "               10  HDR-DATE        PIC 9(8).",
+                "           05  POSTING-DETAIL REDEFINES POSTING-HEADER.",
+                "               10  DTL-AMOUNT      PIC S9(7)V99 COMP-3.",
+                "               10  DTL-COUNT       PIC S9(4) COMP."));
+        ParseResult posting = new CopybookParserFacade().parse(cbl);
+
+        assertEquals(2, posting.getRecordLayouts().size());
+        for (RecordLayout layout : posting.getRecordLayouts()) {
+            assertEquals(9, DecodePlan.recordLength(layout), layout.getName());
+        }
+        RecordLayout detail = posting.getRecordLayouts().stream()
+                .filter(l -> l.getName().equals("POSTING-DETAIL")).findFirst().orElseThrow();
+        DecodePlan plan = DecodePlan.compile(detail);
+        assertEquals(1, offsetOf(plan, "DTL-AMOUNT"));
+        assertEquals(6, offsetOf(plan, "DTL-COUNT"));
+    }
+
+    @Test
+    void rejectsPackedFieldsWithoutASignNibble() {
+        ByteBuffer spaces = ByteBuffer.wrap("     ".getBytes(StandardCharsets.ISO_8859_1));
+        assertThrows(IllegalArgumentException.class, () -> FieldDecoder.decodePacked(spaces, 0, 4));
+        assertThrows(IllegalArgumentException.class, () -> FieldDecoder.decodePacked(ByteBuffer.allocate(12), 0, 12));
+        assertEquals(-123L, FieldDecoder.decodePacked(ByteBuffer.wrap(new byte[]{0x12, 0x3B}), 0, 2));
+        assertEquals(123L, FieldDecoder.decodePacked(ByteBuffer.wrap(new byte[]{0x12, 0x3F}), 0, 2));
+    }
+}
@@ -0,0 +1,108 @@
+package com.cobol.index;
+
+import com.cobol.parser.CopybookParserFacade;
+import com.cobol.parser.model.RecordLayout;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/** Builds a key index over a fixed-length file and looks records up through it. */
+class KeyIndexTest {
+
+    private static final int RECORD_LENGTH = 12;
+    private static final String[] ACCOUNTS = {"ACC-07", "ACC-02", "ACC-07", "ACC-11", "ACC-02", "ACC-07", "ACC-05"};
+
+    @TempDir
+    Path dir;
+
+    private RecordLayout layout;
+    private Path data;
+
+    @BeforeEach
+    void writeData() throws Exception {
+        Path copybook = Files.write(dir.resolve("ACCOUNT.cbl"), List.of(
+                "       01  ACCOUNT-RECORD.",
+                "           05  ACCOUNT-ID          PIC X(6).",
+                "           05  ACCOUNT-BRANCH      PIC 9(6)."));
+        layout = new CopybookParserFacade().parse(copybook).getRecordLayouts().get(0);
+        StringBuilder records = new StringBuilder();
+        for (int i = 0; i < ACCOUNTS.length; i++) records.append(ACCOUNTS[i]).append(String.format("%06d", i));
+        data = Files.writeString(dir.resolve("accounts.dat"), records, StandardCharsets.ISO_8859_1);
+    }
+
+    private KeyIndex build() throws IOException {
+        Path index = dir.resolve("accounts.idx");
+        assertEquals(ACCOUNTS.length, new KeyIndexBuilder(layout, "ACCOUNT-ID").build(data, index));
+        return new KeyIndex(index, layout, "ACCOUNT-ID", StandardCharsets.ISO_8859_1);
+    }
+
+    private static List<Long> offsets(String account) {
+        List<Long> offsets = new ArrayList<>();
+        for (int i = 0; i < ACCOUNTS.length; i++) {
+            if (ACCOUNTS[i].equals(account)) offsets.add((long) i * RECORD_LENGTH);
+        }
+        return offsets;
+    }
+
+    @Test
+    void findsEveryRecordOfAKeyInFileOrder() throws Exception {
+        try (KeyIndex index = build()) {
+            assertEquals(ACCOUNTS.length, index.size());
+            assertEquals(RECORD_LENGTH, index.getRecordLength());
+            for (String account : ACCOUNTS) assertEquals(offsets(account), index.find(account), account);
+        }
+    }
+
+    @Test
+    void missesReturnNothing() throws Exception {
+        try (KeyIndex index = build()) {
+            for (String account : new String[]{"ACC-00", "ACC-03", "ACC-99", "ACC-0", ""}) {
+                assertEquals(List.of(), index.find(account), account);
+            }
+        }
+    }
+
+    @Test
+    void scansAnInclusiveRangeInKeyOrder() throws Exception {
+        try (KeyIndex index = build()) {
+            List<Long> scanned = new ArrayList<>();
+            index.scan("ACC-03", "ACC-07", scanned::add);
+            List<Long> expected = new ArrayList<>(offsets("ACC-05"));
+            expected.addAll(offsets("ACC-07"));
+            assertEquals(expected, scanned);
+
+            scanned.clear();
+            index.scan(null, "ACC-02", scanned::add);
+            assertEquals(offsets("ACC-02"), scanned);
+        }
+    }
+
+    @Test
+    void rejectsKeysLongerThanTheField() throws Exception {
+        try (KeyIndex index = build()) {
+            assertThrows(IllegalArgumentException.class, () -> index.find("ACC-070"));
+        }
+    }
+
+    @Test
+    void rejectsTruncatedIndexFiles() throws Exception {
+        build().close();
+        Path index = dir.resolve("accounts.idx");
+        byte[] bytes = Files.readAllBytes(index);
+        Files.write(index, Arrays.copyOf(bytes, bytes.length - 1));
+        assertThrows(IOException.class, () -> new KeyIndex(index, layout, "ACCOUNT-ID", StandardCharsets.ISO_8859_1));
+        Files.write(index, Arrays.copyOf(bytes, 3));
+        assertThrows(IOException.class, () -> new KeyIndex(index, layout, "ACCOUNT-ID", StandardCharsets.ISO_8859_1));
+    }
+}
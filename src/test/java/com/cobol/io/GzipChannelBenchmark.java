@@ -0,0 +1,109 @@
+package com.cobol.io;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Compares {@link GzipChannel} with {@link GZIPInputStream} on multi-member and
+ * single-member files. Run with {@code mvn -P benchmark test}; the size defaults to
+ * 100 MB and can be changed with {@code -Dbenchmark.megabytes=N}. The parallel speed-up
+ * is only asserted on machines with at least two cores.
+ */
+class GzipChannelBenchmark {
+
+    private static final int ROUNDS = 3;
+    private static final int MEMBER_BYTES = 1 << 20;
+
+    @TempDir
+    static Path dir;
+
+    private static int length;
+    private static Path multiMember;
+    private static Path singleMember;
+
+    @BeforeAll
+    static void writeFiles() throws IOException {
+        length = Integer.getInteger("benchmark.megabytes", 100) << 20;
+        byte[] data = GzipChannelTest.records(length, 42);
+        int[] cuts = new int[length / MEMBER_BYTES - 1];
+        for (int i = 0; i < cuts.length; i++) cuts[i] = (i + 1) * MEMBER_BYTES;
+        multiMember = Files.write(dir.resolve("multi.gz"), GzipChannelTest.members(data, Deflater.DEFAULT_COMPRESSION, cuts));
+        singleMember = Files.write(dir.resolve("single.gz"), GzipChannelTest.gzip(data, 0, length, Deflater.DEFAULT_COMPRESSION));
+    }
+
+    @Test
+    void parallelInflationBeatsGzipInputStreamOnMultiMemberFiles() throws IOException {
+        int cores = Runtime.getRuntime().availableProcessors();
+        long sequential = best(() -> drain(multiMember));
+        long parallel = best(() -> drain(new GzipChannel(multiMember, cores)));
+        long opened = best(() -> drain(DataFiles.open(multiMember, cores)));
+        report("multi-member", cores, sequential, parallel, opened);
+
+        assumeTrue(cores >= 2, "parallel inflation needs at least two cores");
+        assertTrue(parallel < sequential * 0.8, "GzipChannel took " + parallel + " ms, GZIPInputStream " + sequential + " ms");
+    }
+
+    @Test
+    void singleMemberFilesAreNoSlowerThroughDataFiles() throws IOException {
+        int cores = Runtime.getRuntime().availableProcessors();
+        long sequential = best(() -> drain(singleMember));
+        long parallel = best(() -> drain(new GzipChannel(singleMember, cores)));
+        long opened = best(() -> drain(DataFiles.open(singleMember, cores)));
+        report("single-member", cores, sequential, parallel, opened);
+
+        assertTrue(opened < sequential * 1.25, "DataFiles took " + opened + " ms, GZIPInputStream " + sequential + " ms");
+    }
+
+    private interface Run {
+        long bytes() throws IOException;
+    }
+
+    /** Fastest of several rounds in milliseconds, after one warm-up round. */
+    private static long best(Run run) throws IOException {
+        assertEquals(length, run.bytes());
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < ROUNDS; i++) {
+            long start = System.nanoTime();
+            assertEquals(length, run.bytes());
+            best = Math.min(best, (System.nanoTime() - start) / 1_000_000);
+        }
+        return best;
+    }
+
+    private static long drain(Path file) throws IOException {
+        byte[] buffer = new byte[1 << 16];
+        long total = 0;
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(file), 1 << 16)) {
+            for (int n; (n = in.read(buffer)) >= 0; ) total += n;
+        }
+        return total;
+    }
+
+    private static long drain(ReadableByteChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+        long total = 0;
+        try (channel) {
+            for (int n; (n = channel.read(buffer)) >= 0; buffer.clear()) total += n;
+        }
+        return total;
+    }
+
+    private static void report(String input, int cores, long sequential, long parallel, long opened) {
+        System.out.printf("%s, %d MB, %d cores: GZIPInputStream %d ms, GzipChannel %d ms, DataFiles.open %d ms%n",
+                input, length >> 20, cores, sequential, parallel, opened);
+    }
+}
@@ -0,0 +1,137 @@
+package com.cobol.io;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Round-trips gzip files through {@link GzipChannel} with several inflater threads, so
+ * members are inflated speculatively and out of order.
+ */
+class GzipChannelTest {
+
+    /** A well-formed member header: magic, deflate, no flags, no mtime, XFL 0, OS unknown. */
+    private static final byte[] FAKE_HEADER = {0x1F, (byte) 0x8B, 8, 0, 0, 0, 0, 0, 0, (byte) 0xFF};
+
+    @TempDir
+    Path dir;
+
+    static byte[] records(int length, long seed) {
+        Random random = new Random(seed);
+        byte[] data = new byte[length];
+        for (int i = 0; i < length; i++) {
+            data[i] = (byte) (i % 80 == 79 ? '\n' : 'A' + random.nextInt(random.nextInt(26) + 1));
+        }
+        return data;
+    }
+
+    static byte[] gzip(byte[] data, int from, int to, int level) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out) {
+            {
+                def.setLevel(level);
+            }
+        }) {
+            gzip.write(data, from, to - from);
+        }
+        return out.toByteArray();
+    }
+
+    /** Compresses {@code data} as consecutive members cut at the given offsets. */
+    static byte[] members(byte[] data, int level, int... cuts) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int from = 0;
+        for (int cut : cuts) {
+            out.write(gzip(data, from, cut, level));
+            from = cut;
+        }
+        out.write(gzip(data, from, data.length, level));
+        return out.toByteArray();
+    }
+
+    static byte[] readAll(ReadableByteChannel channel) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteBuffer buffer = ByteBuffer.allocate(7919);
+        while (channel.read(buffer) >= 0) {
+            out.write(buffer.array(), 0, buffer.position());
+            buffer.clear();
+        }
+        return out.toByteArray();
+    }
+
+    private byte[] inflate(byte[] compressed, int threads) throws IOException {
+        Path file = Files.write(dir.resolve("data.gz"), compressed);
+        try (GzipChannel channel = new GzipChannel(file, threads)) {
+            return readAll(channel);
+        }
+    }
+
+    @Test
+    void multiMemberRoundTrip() throws IOException {
+        byte[] data = records(6_000_000, 1);
+        byte[] compressed = members(data, Deflater.DEFAULT_COMPRESSION, 1, 70_000, 70_000, 2_500_000, 2_600_000, 5_999_999);
+        for (int threads : new int[]{1, 2, 4}) {
+            assertArrayEquals(data, inflate(compressed, threads), "threads=" + threads);
+        }
+    }
+
+    @Test
+    void singleMemberRoundTrip() throws IOException {
+        byte[] data = records(3_000_000, 2);
+        assertArrayEquals(data, inflate(gzip(data, 0, data.length, Deflater.BEST_SPEED), 4));
+    }
+
+    @Test
+    void headersPlantedInsideDeflateDataAreNotMemberBoundaries() throws IOException {
+        byte[] data = records(2_000_000, 3);
+        for (int i = 1000; i < data.length - FAKE_HEADER.length; i += 50_000) {
+            System.arraycopy(FAKE_HEADER, 0, data, i, FAKE_HEADER.length);
+        }
+        // Stored blocks copy the planted headers into the compressed stream verbatim.
+        byte[] compressed = members(data, Deflater.NO_COMPRESSION, 400_000, 1_200_000);
+        assertArrayEquals(data, inflate(compressed, 4));
+    }
+
+    @Test
+    void trailingGarbageIsIgnored() throws IOException {
+        byte[] data = records(500_000, 4);
+        byte[] compressed = members(data, Deflater.DEFAULT_COMPRESSION, 100_000, 300_000);
+        byte[] withGarbage = Arrays.copyOf(compressed, compressed.length + 37);
+        Arrays.fill(withGarbage, compressed.length, withGarbage.length, (byte) 0);
+        assertArrayEquals(data, inflate(withGarbage, 4));
+    }
+
+    @Test
+    void corruptTrailerFails() throws IOException {
+        byte[] data = records(300_000, 5);
+        byte[] compressed = members(data, Deflater.DEFAULT_COMPRESSION, 100_000);
+        compressed[compressed.length - 6] ^= 0x55;
+        assertThrows(IOException.class, () -> inflate(compressed, 4));
+    }
+
+    @Test
+    void dataFilesReadsEveryLayoutOfMembers() throws IOException {
+        byte[] data = records(1_000_000, 6);
+        for (byte[] compressed : new byte[][]{
+                gzip(data, 0, data.length, Deflater.DEFAULT_COMPRESSION),
+                members(data, Deflater.DEFAULT_COMPRESSION, 250_000, 500_000, 750_000)}) {
+            Path file = Files.write(dir.resolve("data.gz"), compressed);
+            try (ReadableByteChannel channel = DataFiles.open(file, 4)) {
+                assertArrayEquals(data, readAll(channel));
+            }
+        }
+    }
+}
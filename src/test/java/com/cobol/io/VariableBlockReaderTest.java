@@ -0,0 +1,180 @@
+package com.cobol.io;
+
+import com.cobol.decoder.DecodePlan;
+import com.cobol.parser.CopybookParserFacade;
+import com.cobol.parser.model.RecordLayout;
+import com.cobol.rules.RecordClassifier;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Reads hand-built RECFM=VB and RECFM=V files whose records are classified by length,
+ * sequentially and with several workers.
+ */
+class VariableBlockReaderTest {
+
+    @TempDir
+    Path dir;
+
+    private RecordClassifier classifier;
+
+    @BeforeEach
+    void parse() throws Exception {
+        RecordLayout shortLayout = layout("SHORT.cbl", "       01  SHORT-RECORD.", "           05  SHORT-ID            PIC X(10).");
+        RecordLayout longLayout = layout("LONG.cbl", "       01  LONG-RECORD.", "           05  LONG-ID             PIC X(30).");
+        assertEquals(10, DecodePlan.recordLength(shortLayout));
+        assertEquals(30, DecodePlan.recordLength(longLayout));
+        classifier = RecordClassifier.byLength(List.of(shortLayout, longLayout));
+    }
+
+    private RecordLayout layout(String file, String... lines) throws Exception {
+        return new CopybookParserFacade().parse(Files.write(dir.resolve(file), List.of(lines))).getRecordLayouts().get(0);
+    }
+
+    /** Record {@code i}: its number followed by filler, 10 or 30 bytes for most records. */
+    private static byte[] record(int i, Random random) {
+        int length = switch (random.nextInt(3)) {
+            case 0 -> 10;
+            case 1 -> 30;
+            default -> 6 + random.nextInt(60);
+        };
+        byte[] record = new byte[length];
+        Arrays.fill(record, (byte) ('A' + i % 26));
+        System.arraycopy(String.format("%06d", i).getBytes(StandardCharsets.ISO_8859_1), 0, record, 0, 6);
+        return record;
+    }
+
+    private static byte[] descriptor(int length, boolean extended) {
+        return extended ? ByteBuffer.allocate(4).putInt(length | 0x80000000).array()
+                : ByteBuffer.allocate(4).putShort((short) length).array();
+    }
+
+    /** Writes the records in blocks of one to seven records; every fifth block has an extended BDW. */
+    private static byte[] blocked(List<byte[]> records, Random random) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int i = 0, block = 0; i < records.size(); block++) {
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            for (int end = Math.min(records.size(), i + 1 + random.nextInt(7)); i < end; i++) {
+                body.write(descriptor(records.get(i).length + 4, false));
+                body.write(records.get(i));
+            }
+            out.write(descriptor(body.size() + 4, block % 5 == 4));
+            body.writeTo(out);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] unblocked(List<byte[]> records) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] record : records) {
+            out.write(descriptor(record.length + 4, false));
+            out.write(record);
+        }
+        return out.toByteArray();
+    }
+
+    private static List<byte[]> records(int count, Random random) {
+        List<byte[]> records = new ArrayList<>();
+        for (int i = 0; i < count; i++) records.add(record(i, random));
+        return records;
+    }
+
+    /** The record text prefixed with the name of the layout it was classified as. */
+    private static String describe(RecordLayout layout, ByteBuffer data, int start, int length) {
+        byte[] bytes = new byte[length];
+        data.get(start, bytes);
+        return (layout == null ? "-" : layout.getName()) + ":" + new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+
+    private static List<String> expected(List<byte[]> records) {
+        return records.stream().map(r -> (switch (r.length) {
+            case 10 -> "SHORT-RECORD";
+            case 30 -> "LONG-RECORD";
+            default -> "-";
+        }) + ":" + new String(r, StandardCharsets.ISO_8859_1)).toList();
+    }
+
+    private List<String> read(Path file, boolean blocked) throws IOException {
+        List<String> seen = new ArrayList<>();
+        long count = new VariableBlockReader(file, blocked, classifier)
+                .read((layout, data, start, length) -> seen.add(describe(layout, data, start, length)));
+        assertEquals(seen.size(), count);
+        return seen;
+    }
+
+    /** Records read by several workers, in sorted order since partitions interleave. */
+    private List<String> readParallel(Path file, boolean blocked, int threads) throws IOException {
+        List<String> seen = Collections.synchronizedList(new ArrayList<>());
+        long count = new VariableBlockReader(file, blocked, classifier)
+                .readParallel(threads, () -> (layout, data, start, length) -> seen.add(describe(layout, data, start, length)));
+        assertEquals(seen.size(), count);
+        return sorted(seen);
+    }
+
+    private static List<String> sorted(List<String> records) {
+        List<String> sorted = new ArrayList<>(records);
+        Collections.sort(sorted);
+        return sorted;
+    }
+
+    @Test
+    void readsEveryRecordOfAFileWithManyBlocks() throws Exception {
+        Random random = new Random(11);
+        List<byte[]> records = records(3_000, random);
+        Path file = Files.write(dir.resolve("data.vb"), blocked(records, random));
+
+        assertEquals(expected(records), read(file, true));
+        for (int threads : new int[]{1, 2, 5}) {
+            assertEquals(sorted(expected(records)), readParallel(file, true, threads), "threads=" + threads);
+        }
+    }
+
+    @Test
+    void readsUnblockedFiles() throws Exception {
+        List<byte[]> records = records(500, new Random(12));
+        Path file = Files.write(dir.resolve("data.v"), unblocked(records));
+
+        assertEquals(expected(records), read(file, false));
+        assertEquals(sorted(expected(records)), readParallel(file, false, 3));
+    }
+
+    @Test
+    void truncatedLastBlockFails() throws Exception {
+        Random random = new Random(13);
+        byte[] data = blocked(records(100, random), random);
+        Path file = Files.write(dir.resolve("data.vb"), Arrays.copyOf(data, data.length - 3));
+
+        assertThrows(IOException.class, () -> read(file, true));
+        assertThrows(IOException.class, () -> readParallel(file, true, 2));
+    }
+
+    @Test
+    void recordOverrunningItsBlockFails() throws Exception {
+        byte[] data = ByteBuffer.allocate(20).put(descriptor(20, false)).put(descriptor(24, false)).array();
+        Path file = Files.write(dir.resolve("data.vb"), data);
+
+        assertThrows(IOException.class, () -> read(file, true));
+    }
+
+    @Test
+    void rejectsFewerThanOneThread() throws Exception {
+        Path file = Files.write(dir.resolve("data.vb"), new byte[0]);
+        assertThrows(IllegalArgumentException.class, () -> readParallel(file, true, 0));
+    }
+}
@@ -0,0 +1,128 @@
+package com.cobol.parser.token;
+
+import com.cobol.parser.CopybookParserFacade;
+import com.cobol.parser.model.CobolField;
+import com.cobol.parser.model.ParseResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Expands COPY members with REPLACING through a {@link CopybookLibrary} rooted in a
+ * temporary directory.
+ */
+class CopybookLibraryTest {
+
+    @TempDir
+    Path dir;
+
+    private CopybookLibrary library;
+
+    @BeforeEach
+    void createLibrary() throws Exception {
+        Files.write(dir.resolve("ADDRESS.cpy"), List.of(
+                "           05  :TAG:-STREET        PIC X(30).",
+                "           05  :TAG:-CITY          PIC X(20)."));
+        Files.write(dir.resolve("AMOUNTS.cpy"), List.of(
+                "           05  GROSS-IN            PIC 9(7).",
+                "           05  NET-IN              PIC 9(7)."));
+        library = new CopybookLibrary(List.of(dir));
+    }
+
+    private ParseResult parse(String... lines) throws Exception {
+        Path copybook = dir.resolve("main.cbl");
+        Files.write(copybook, List.of(lines));
+        return new CopybookParserFacade(library).parse(copybook);
+    }
+
+    private static List<String> names(ParseResult result) {
+        List<String> names = new ArrayList<>();
+        result.getRecordLayouts().forEach(layout -> collect(layout.getFields(), names));
+        return names;
+    }
+
+    private static void collect(List<CobolField> fields, List<String> names) {
+        for (CobolField field : fields) {
+            names.add(field.getName());
+            collect(field.getChildren(), names);
+        }
+    }
+
+    @Test
+    void fullReplacementOfATagReplacesItInsideWords() throws Exception {
+        ParseResult result = parse(
+                "       01  CUSTOMER-RECORD.",
+                "           COPY ADDRESS REPLACING ==:TAG:== BY ==CUST==.");
+        assertEquals(List.of("CUST-STREET", "CUST-CITY"), names(result));
+    }
+
+    @Test
+    void fullReplacementOfWordsReplacesWholeWordsOnly() throws Exception {
+        ParseResult result = parse(
+                "       01  TOTALS-RECORD.",
+                "           COPY AMOUNTS REPLACING GROSS-IN BY GROSS-TOTAL.");
+        assertEquals(List.of("GROSS-TOTAL", "NET-IN"), names(result));
+    }
+
+    @Test
+    void leadingReplacementOfATag() throws Exception {
+        ParseResult result = parse(
+                "       01  ORDER-RECORD.",
+                "           COPY ADDRESS REPLACING LEADING ==:TAG:== BY ==SHIP==.");
+        assertEquals(List.of("SHIP-STREET", "SHIP-CITY"), names(result));
+    }
+
+    @Test
+    void trailingReplacement() throws Exception {
+        ParseResult result = parse(
+                "       01  TOTALS-RECORD.",
+                "           COPY AMOUNTS REPLACING TRAILING ==-IN== BY ==-OUT==.");
+        assertEquals(List.of("GROSS-OUT", "NET-OUT"), names(result));
+    }
+
+    @Test
+    void nestedCopyIsExpandedAndTracked() throws Exception {
+        Path customer = dir.resolve("CUSTOMER.cpy");
+        Files.write(customer, List.of(
+                "           05  CUSTOMER-ID         PIC 9(8).",
+                "           COPY ADDRESS REPLACING ==:TAG:== BY ==HOME==."));
+        Path copybook = dir.resolve("main.cbl");
+        Files.write(copybook, List.of(
+                "       01  CUSTOMER-RECORD.",
+                "           COPY CUSTOMER."));
+        Map<Path, FileTime> includes = new HashMap<>();
+        ParseResult result = new CopybookParserFacade(library).parse(copybook, includes);
+
+        assertEquals(List.of("CUSTOMER-ID", "HOME-STREET", "HOME-CITY"), names(result));
+        assertTrue(includes.containsKey(customer.toAbsolutePath().normalize()));
+        assertTrue(includes.containsKey(dir.resolve("ADDRESS.cpy").toAbsolutePath().normalize()));
+    }
+
+    @Test
+    void editedNestedMemberReplacesItsCacheEntries() throws Exception {
+        Files.write(dir.resolve("CUSTOMER.cpy"), List.of(
+                "           05  CUSTOMER-ID         PIC 9(8).",
+                "           COPY ADDRESS REPLACING ==:TAG:== BY ==HOME==."));
+        String[] main = {"       01  CUSTOMER-RECORD.", "           COPY CUSTOMER."};
+        parse(main);
+        int entries = library.getCacheSize();
+
+        Path address = dir.resolve("ADDRESS.cpy");
+        Files.write(address, List.of("           05  :TAG:-ZIP           PIC X(10)."));
+        Files.setLastModifiedTime(address, FileTime.fromMillis(Files.getLastModifiedTime(address).toMillis() + 5000));
+
+        assertEquals(List.of("CUSTOMER-ID", "HOME-ZIP"), names(parse(main)));
+        assertEquals(entries, library.getCacheSize());
+    }
+}
@@ -0,0 +1,57 @@
+package com.cobol.registry;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Refreshes a registry by hand, without the watcher thread. */
+class CopybookRegistryTest {
+
+    @TempDir
+    Path dir;
+
+    private static void write(Path file, long bumpMillis, String... lines) throws Exception {
+        FileTime before = Files.exists(file) ? Files.getLastModifiedTime(file) : null;
+        Files.write(file, List.of(lines));
+        if (before != null) Files.setLastModifiedTime(file, FileTime.fromMillis(before.toMillis() + bumpMillis));
+    }
+
+    @Test
+    void failedParseKeepsThePreviousVersionAndReportsTheError() throws Exception {
+        Path copybook = dir.resolve("ORDER.cbl").toAbsolutePath().normalize();
+        write(copybook, 0,
+                "       01  ORDER-RECORD.",
+                "           05  ORDER-ID            PIC 9(8).");
+        try (CopybookRegistry registry = new CopybookRegistry(dir, dir, StandardCharsets.ISO_8859_1)) {
+            long version = registry.current().getVersion();
+            CompiledCopybook loaded = registry.current().getCopybook("ORDER").orElseThrow();
+
+            write(copybook, 5000,
+                    "       01  ORDER-RECORD.",
+                    "           COPY MISSING-MEMBER.");
+            registry.refresh(List.of(copybook));
+
+            assertEquals(version, registry.current().getVersion());
+            assertEquals(loaded, registry.current().getCopybook("ORDER").orElseThrow());
+            assertInstanceOf(NoSuchFileException.class, registry.getErrors().get(copybook));
+
+            write(copybook, 5000,
+                    "       01  ORDER-RECORD.",
+                    "           05  ORDER-ID            PIC 9(10).");
+            registry.refresh(List.of(copybook));
+
+            assertEquals(version + 1, registry.current().getVersion());
+            assertTrue(registry.getErrors().isEmpty());
+        }
+    }
+}
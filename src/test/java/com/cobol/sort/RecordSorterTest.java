@@ -0,0 +1,145 @@
+package com.cobol.sort;
+
+import com.cobol.decoder.DecodePlan;
+import com.cobol.decoder.FieldDecoder;
+import com.cobol.parser.CopybookParserFacade;
+import com.cobol.parser.model.RecordLayout;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Sorts a file of 19-byte sale records with run buffers small enough to force several
+ * runs and a merge fan-in small enough to force intermediate merge passes.
+ */
+class RecordSorterTest {
+
+    private static final int RECORD_LENGTH = 19;
+    private static final String[] REGIONS = {"WEST", "EAST", "NRTH", "STH "};
+
+    @TempDir
+    Path dir;
+
+    private RecordLayout layout;
+
+    @BeforeEach
+    void parse() throws Exception {
+        Path copybook = Files.write(dir.resolve("SALE.cbl"), List.of(
+                "       01  SALE-RECORD.",
+                "           05  SALE-REGION         PIC X(4).",
+                "           05  SALE-AMOUNT         PIC S9(15)V99 COMP-3.",
+                "           05  SALE-SEQ            PIC 9(6)."));
+        layout = new CopybookParserFacade().parse(copybook).getRecordLayouts().get(0);
+        assertEquals(RECORD_LENGTH, DecodePlan.recordLength(layout));
+    }
+
+    /** Records with few distinct keys, so that most keys repeat; SALE-SEQ is the input position. */
+    private static byte[] sales(int count, long seed) {
+        Random random = new Random(seed);
+        ByteBuffer data = ByteBuffer.allocate(count * RECORD_LENGTH);
+        for (int i = 0; i < count; i++) {
+            int start = i * RECORD_LENGTH;
+            data.put(start, REGIONS[random.nextInt(REGIONS.length)].getBytes(StandardCharsets.ISO_8859_1));
+            data.put(start + 4, packed((random.nextInt(9) - 4) * 12_345L));
+            data.put(start + 13, String.format("%06d", i).getBytes(StandardCharsets.ISO_8859_1));
+        }
+        return data.array();
+    }
+
+    /** Nine-byte COMP-3 encoding of an unscaled value. */
+    private static byte[] packed(long value) {
+        byte[] bytes = new byte[9];
+        long digits = Math.abs(value);
+        bytes[8] = (byte) ((digits % 10) << 4 | (value < 0 ? 0x0D : 0x0C));
+        digits /= 10;
+        for (int i = 7; i >= 0; i--, digits /= 100) {
+            bytes[i] = (byte) ((digits / 10 % 10) << 4 | digits % 10);
+        }
+        return bytes;
+    }
+
+    private static String region(ByteBuffer data, int start) {
+        return new String(data.array(), start, 4, StandardCharsets.ISO_8859_1);
+    }
+
+    private static long amount(ByteBuffer data, int start) {
+        return FieldDecoder.decodePackedLong(data, start + 4, 9);
+    }
+
+    private static int sequence(ByteBuffer data, int start) {
+        return Integer.parseInt(new String(data.array(), start + 13, 6, StandardCharsets.ISO_8859_1));
+    }
+
+    private SortOptions options() {
+        SortOptions options = new SortOptions();
+        options.setRunBufferBytes(RECORD_LENGTH * 50);
+        options.setMergeFanIn(3);
+        options.setThreads(2);
+        options.setTempDirectory(dir);
+        return options;
+    }
+
+    private List<Path> runFiles() throws Exception {
+        try (var files = Files.list(dir)) {
+            return files.filter(f -> f.getFileName().toString().startsWith("sort-run-")).toList();
+        }
+    }
+
+    @Test
+    void sortsByEveryKeyAndKeepsEqualKeysInInputOrder() throws Exception {
+        int count = 2_000;
+        byte[] input = sales(count, 7);
+        Path in = Files.write(dir.resolve("sales.dat"), input);
+        Path out = dir.resolve("sorted.dat");
+
+        long sorted = new RecordSorter(layout, List.of(SortKey.ascending("SALE-REGION"), SortKey.descending("SALE-AMOUNT")),
+                options()).sort(in, out);
+
+        assertEquals(count, sorted);
+        ByteBuffer result = ByteBuffer.wrap(Files.readAllBytes(out));
+        assertEquals(input.length, result.capacity());
+        boolean[] seen = new boolean[count];
+        for (int i = 0; i < count; i++) {
+            int start = i * RECORD_LENGTH;
+            int sequence = sequence(result, start);
+            assertTrue(!seen[sequence], "record " + sequence + " written twice");
+            seen[sequence] = true;
+            int source = sequence * RECORD_LENGTH;
+            assertArrayEquals(Arrays.copyOfRange(input, source, source + RECORD_LENGTH),
+                    Arrays.copyOfRange(result.array(), start, start + RECORD_LENGTH));
+            if (i == 0) continue;
+
+            int previous = start - RECORD_LENGTH;
+            int byRegion = region(result, previous).compareTo(region(result, start));
+            int byAmount = Long.compare(amount(result, start), amount(result, previous));
+            assertTrue(byRegion < 0 || byRegion == 0 && byAmount <= 0, "records " + (i - 1) + " and " + i + " are out of order");
+            if (byRegion == 0 && byAmount == 0) {
+                assertTrue(sequence(result, previous) < sequence, "equal keys at " + i + " lost their input order");
+            }
+        }
+        assertEquals(List.of(), runFiles());
+    }
+
+    @Test
+    void singleRunIsWrittenStraightToTheOutput() throws Exception {
+        byte[] input = sales(40, 8);
+        Path in = Files.write(dir.resolve("sales.dat"), input);
+        Path out = dir.resolve("sorted.dat");
+
+        assertEquals(40, new RecordSorter(layout, List.of(SortKey.ascending("SALE-SEQ")), options()).sort(in, out));
+        assertArrayEquals(input, Files.readAllBytes(out));
+        assertEquals(List.of(), runFiles());
+    }
+}